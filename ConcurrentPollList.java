@@ -0,0 +1,394 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collection of polls that many threads can add polls to and update parties in while other threads draw it.
+ * <p>
+ * Polls are appended without locking: each new poll takes the next index with a single atomic increment and is
+ * stored in a segment of slots, where every segment is twice as big as the one before, so the storage grows
+ * without ever copying the polls already added. Poll names (ignoring case) are looked up in a ConcurrentHashMap.
+ * <p>
+ * The list keeps its own copies of the polls it is given. A poll's parties are never changed in place; updating
+ * a poll makes a new copy with the new parties and publishes it in one write, so readers always see a whole
+ * poll. Updates are locked per poll with one of a fixed set of striped locks, so updates to different polls
+ * rarely wait for each other. Every stripe also has a version that is counted up before and after each update.
+ * A snapshot collects the current copy of each poll without locking and keeps it if no version changed while it
+ * did, which gives a consistent view of all polls at one moment to aggregate and draw, without stopping appends
+ * or updates. Only when updates keep landing during the collection does a snapshot take every stripe lock.
+ */
+public class ConcurrentPollList {
+	private static final int FIRST_SEGMENT_SIZE = 16;
+	private static final int FIRST_SEGMENT_SHIFT = 4;
+	//Enough segments for Integer.MAX_VALUE polls
+	private static final int MAX_SEGMENTS = 32 - FIRST_SEGMENT_SHIFT;
+	private static final int LOCK_STRIPES = 64;
+	//Times a snapshot collects the polls without locking before it locks every stripe instead
+	private static final int SNAPSHOT_ATTEMPTS = 4;
+
+	//Instance variables
+	private int numOfSeats;
+	int MAX_STARS_FOR_VISUALIZATION = 18;
+	private AtomicReferenceArray<AtomicReferenceArray<PollEntry>> segments =
+			new AtomicReferenceArray<AtomicReferenceArray<PollEntry>>(MAX_SEGMENTS);
+	//Index the next added poll is stored at
+	private AtomicInteger nextIndex = new AtomicInteger();
+	//Maps the lower case name of each poll to its entry
+	private ConcurrentHashMap<String, PollEntry> pollIndex = new ConcurrentHashMap<String, PollEntry>();
+	private ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+	//Counted up before and after every update to a poll of the stripe, so it is odd while an update is under way
+	private AtomicLongArray versions = new AtomicLongArray(LOCK_STRIPES);
+
+	/**
+	 * Creates an empty list for an election with the given number of seats.
+	 * @param numOfSeats number of seats available in the election, should be at least 1 (10 is used otherwise)
+	 */
+	public ConcurrentPollList(int numOfSeats) {
+		this.numOfSeats = (numOfSeats < 1) ? 10 : numOfSeats;
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Getter method for the number of seats.
+	 */
+	public int getNumOfSeats() {
+		return numOfSeats;
+	}
+
+	/**
+	 * Gives the number of polls that have been added, including any still being stored by other threads.
+	 * @return Number of polls
+	 */
+	public int getNumOfPolls() {
+		return nextIndex.get();
+	}
+
+	/**
+	 * Adds a copy of a poll to the end of the list. If a poll with the same name (ignoring case) is already in the
+	 * list, its parties are replaced by the new poll's instead. Changing the given poll afterwards has no effect on
+	 * the list. Safe to call from any thread.
+	 * @param pollToAdd The poll to add
+	 */
+	public void addPoll(Poll pollToAdd) {
+		if (pollToAdd == null) {
+			System.out.println("Error: Null as argument");
+			return;
+		}
+
+		String key = pollKey(pollToAdd.getPollName());
+		PollEntry entry = new PollEntry(key, pollToAdd.copy(pollToAdd.getNumberOfParties()));
+		if (key != null) {
+			PollEntry existing = pollIndex.putIfAbsent(key, entry);
+			if (existing != null) {
+				ReentrantLock lock = lockFor(existing);
+				lock.lock();
+				try {
+					publish(existing, entry.poll);
+				}
+				finally {
+					lock.unlock();
+				}
+				return;
+			}
+		}
+
+		int index = nextIndex.getAndIncrement();
+		segmentFor(index).set(offsetOf(index), entry);
+	}
+
+	/**
+	 * Adds or replaces parties in the named poll as one change: readers and snapshots see either none or all of
+	 * them. Each party is copied, and parties with the same name as a party in the poll (ignoring case) replace it.
+	 * Safe to call from any thread.
+	 * @param pollName Name of the poll to update
+	 * @param parties The parties to add or replace
+	 * @return true if the poll was found and updated, false if no poll has that name
+	 */
+	public boolean updateParties(String pollName, Party... parties) {
+		String key = pollKey(pollName);
+		PollEntry entry = (key == null) ? null : pollIndex.get(key);
+		if (entry == null) {
+			return false;
+		}
+
+		ReentrantLock lock = lockFor(entry);
+		lock.lock();
+		try {
+			Poll current = entry.poll;
+			Poll updated = current.copy(current.getNumberOfParties() + parties.length);
+			for (Party party : parties) {
+				updated.addParty(party.copy());
+			}
+			publish(entry, updated);
+		}
+		finally {
+			lock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Gives a copy of the poll with the given name as it is now, ignoring case.
+	 * @param pollName Name of the poll to find
+	 * @return A copy of the poll, or null if no poll has that name
+	 */
+	public Poll getPoll(String pollName) {
+		String key = pollKey(pollName);
+		PollEntry entry = (key == null) ? null : pollIndex.get(key);
+		if (entry == null) {
+			return null;
+		}
+		Poll current = entry.poll;
+		return current.copy(current.getNumberOfParties());
+	}
+
+	/**
+	 * Takes a consistent view of every poll in the list as it is at this moment. Polls still being appended by
+	 * other threads may be left out. The current copy of each poll is collected without locking and the collection
+	 * is only kept if no stripe's version changed meanwhile, so no update is seen half done and no update is seen
+	 * without the ones that finished before it. If updates keep changing the versions, every stripe lock is held
+	 * while the polls are collected one last time.
+	 * @return New Snapshot
+	 */
+	public Snapshot snapshot() {
+		long[] seen = new long[LOCK_STRIPES];
+		for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+			for (int i = 0; i < LOCK_STRIPES; i++) {
+				seen[i] = versions.get(i);
+			}
+			Snapshot snapshot = collectPolls();
+			if (versionsUnchanged(seen)) {
+				return snapshot;
+			}
+		}
+
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+		try {
+			return collectPolls();
+		}
+		finally {
+			for (int i = locks.length - 1; i >= 0; i--) {
+				locks[i].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Collects the current copy of every poll stored so far. On its own this is not a consistent view, since
+	 * polls may be updated while they are collected.
+	 * @return New Snapshot of the collected polls
+	 */
+	private Snapshot collectPolls() {
+		int end = nextIndex.get();
+		Poll[] polls = new Poll[end];
+		int count = 0;
+		for (int index = 0; index < end; index++) {
+			PollEntry entry = segmentFor(index).get(offsetOf(index));
+			if (entry != null) {
+				polls[count++] = entry.poll;
+			}
+		}
+		return new Snapshot(polls, count, numOfSeats, MAX_STARS_FOR_VISUALIZATION);
+	}
+
+	/**
+	 * Checks that no update started or was under way since the versions were read.
+	 * @param seen The version of every stripe, read before the polls were collected
+	 * @return true if every version is even and still the same
+	 */
+	private boolean versionsUnchanged(long[] seen) {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			if ((seen[i] & 1) != 0 || versions.get(i) != seen[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the poll of an entry, counting up the version of its stripe before and after. The entry's stripe
+	 * lock must be held.
+	 * @param entry The entry to update
+	 * @param poll The new copy of the poll
+	 */
+	private void publish(PollEntry entry, Poll poll) {
+		versions.incrementAndGet(entry.stripe);
+		entry.poll = poll;
+		versions.incrementAndGet(entry.stripe);
+	}
+
+	/**
+	 * Creates an aggregate poll from a snapshot of the list, as PollList.getAggregatePoll does.
+	 * @param partyNames Name of party
+	 * @return Poll representing aggregate data of all polls in the list
+	 */
+	public Poll getAggregatePoll(String[] partyNames) {
+		return snapshot().getAggregatePoll(partyNames);
+	}
+
+	/**
+	 * Gets visualization by seats of a snapshot of the list, as PollList.textVisualizationBySeats does.
+	 * @return Visualization of polls by seats
+	 */
+	public String textVisualizationBySeats() {
+		return snapshot().textVisualizationBySeats();
+	}
+
+	/**
+	 * Gets visualization by votes of a snapshot of the list, as PollList.textVisualizationByVotes does.
+	 * @return Visualization of polls by votes
+	 */
+	public String textVisualizationByVotes() {
+		return snapshot().textVisualizationByVotes();
+	}
+
+	/**
+	 * Finds the segment holding an index, creating it if no thread has yet.
+	 * @param index Index of a poll
+	 * @return The segment
+	 */
+	private AtomicReferenceArray<PollEntry> segmentFor(int index) {
+		int segmentNumber = (31 - Integer.numberOfLeadingZeros(index + FIRST_SEGMENT_SIZE)) - FIRST_SEGMENT_SHIFT;
+		AtomicReferenceArray<PollEntry> segment = segments.get(segmentNumber);
+		if (segment == null) {
+			segments.compareAndSet(segmentNumber, null,
+					new AtomicReferenceArray<PollEntry>(FIRST_SEGMENT_SIZE << segmentNumber));
+			segment = segments.get(segmentNumber);
+		}
+		return segment;
+	}
+
+	/**
+	 * Gives the position of an index within its segment.
+	 * @param index Index of a poll
+	 * @return Offset into the segment
+	 */
+	private static int offsetOf(int index) {
+		int position = index + FIRST_SEGMENT_SIZE;
+		return position - Integer.highestOneBit(position);
+	}
+
+	private ReentrantLock lockFor(PollEntry entry) {
+		return locks[entry.stripe];
+	}
+
+	/**
+	 * Gives the key a poll name is stored under in the poll index.
+	 * @param pollName The name of a poll.
+	 * @return The name in lower case, or null for a poll without a name.
+	 */
+	private static String pollKey(String pollName) {
+		return (pollName == null) ? null : Poll.nameKey(pollName);
+	}
+
+	/**
+	 * A poll in the list. The poll it points to is replaced, never changed, when its parties are updated.
+	 */
+	private static class PollEntry {
+		private final int stripe;
+		private volatile Poll poll;
+
+		PollEntry(String key, Poll poll) {
+			int hash = (key == null) ? 0 : key.hashCode();
+			this.stripe = (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+			this.poll = poll;
+		}
+	}
+
+	/**
+	 * The polls of a ConcurrentPollList at one moment. The polls in a snapshot never change, so it can be
+	 * aggregated and drawn by any number of threads while the list keeps changing.
+	 */
+	public static class Snapshot {
+		private final Poll[] polls;
+		private final int numOfPolls;
+		private final int numOfSeats;
+		private final int maxStars;
+		//Added up the first time an aggregate is asked for
+		private PollAggregator totals;
+
+		private Snapshot(Poll[] polls, int numOfPolls, int numOfSeats, int maxStars) {
+			this.polls = polls;
+			this.numOfPolls = numOfPolls;
+			this.numOfSeats = numOfSeats;
+			this.maxStars = maxStars;
+		}
+
+		public int getNumOfPolls() {
+			return numOfPolls;
+		}
+
+		public int getNumOfSeats() {
+			return numOfSeats;
+		}
+
+		private synchronized PollAggregator totals() {
+			if (totals == null) {
+				PollAggregator sums = new PollAggregator();
+				sums.addPollsInParallel(polls, 0, numOfPolls, PollAggregator.DEFAULT_PARALLEL_THRESHOLD, null);
+				totals = sums;
+			}
+			return totals;
+		}
+
+		/**
+		 * Creates a new Party with the average seats and votes of the named party over the polls in the snapshot.
+		 * @param partyName Name of party
+		 * @return instance of Party
+		 */
+		public Party getAveragePartyData(String partyName) {
+			return totals().getAverageParty(partyName);
+		}
+
+		/**
+		 * Creates aggregate poll of all polls in the snapshot called Aggregate.
+		 * @param partyNames Name of party
+		 * @return Poll representing aggregate data of all polls in the snapshot
+		 */
+		public Poll getAggregatePoll(String[] partyNames) {
+			return totals().toPoll("Aggregate", partyNames);
+		}
+
+		/**
+		 * Gets visualization of each poll in the snapshot, the same text PollList.textVisualizationBySeats gives.
+		 * @return Visualization of polls by seats
+		 */
+		public String textVisualizationBySeats() {
+			StringBuilder textResult = new StringBuilder();
+			appendVisualization(textResult, true);
+			return textResult.toString();
+		}
+
+		/**
+		 * Gets visualization of each poll in the snapshot, the same text PollList.textVisualizationByVotes gives.
+		 * @return Visualization of polls by votes
+		 */
+		public String textVisualizationByVotes() {
+			StringBuilder textResult = new StringBuilder();
+			appendVisualization(textResult, false);
+			return textResult.toString();
+		}
+
+		/**
+		 * Appends the visualization of every poll in the snapshot to the end of the given StringBuilder.
+		 * @param out The StringBuilder to append to
+		 * @param useSeats True for a visualization by seats, false for a visualization by votes
+		 */
+		public void appendVisualization(StringBuilder out, boolean useSeats) {
+			double valuePerStar = useSeats
+					? (int) Math.ceil((float) numOfSeats / maxStars)
+					: (int) Math.ceil(100.0 / maxStars);
+
+			for (int i = 0; i < numOfPolls; i++) {
+				polls[i].appendVisualization(out, maxStars, valuePerStar, useSeats);
+				out.append('\n');
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ConcurrentPollListTest {
+
+	private static final int THREADS = 8;
+
+	/**
+	 * Starts the given tasks on their own threads at the same moment and waits for all of them to finish,
+	 * failing the test if any of them threw.
+	 */
+	private static void runTogether(List<Runnable> tasks) throws InterruptedException {
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (Runnable task : tasks) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					task.run();
+				}
+				catch (Throwable e) {
+					e.printStackTrace();
+					failures.incrementAndGet();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals("Tasks that threw an exception", 0, failures.get());
+	}
+
+	// Testing appends
+	@Test(timeout = 60000)
+	public void test_addPoll_manyThreads_noPollsLost() throws InterruptedException {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		int pollsPerThread = 5000;
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				for (int i = 0; i < pollsPerThread; i++) {
+					list.addPoll(PollListTest.pollWith("T" + thread + "-" + i, new Party("CPC", 1, 0.01f)));
+				}
+			});
+		}
+		runTogether(tasks);
+
+		assertEquals("Every appended poll is counted", THREADS * pollsPerThread, list.getNumOfPolls());
+		ConcurrentPollList.Snapshot snapshot = list.snapshot();
+		assertEquals("Every appended poll is in a snapshot", THREADS * pollsPerThread, snapshot.getNumOfPolls());
+		assertEquals("Average over all polls", 1.0, snapshot.getAveragePartyData("CPC").getProjectedNumberOfSeats(), 0.000001);
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 0; i < pollsPerThread; i++) {
+				assertNotNull("Poll T" + t + "-" + i + " can be found", list.getPoll("t" + t + "-" + i));
+			}
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void test_addPoll_sameNameFromManyThreads_keptOnce() throws InterruptedException {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int t = 0; t < THREADS; t++) {
+			tasks.add(() -> {
+				for (int i = 0; i < 1000; i++) {
+					list.addPoll(PollListTest.pollWith("Poll" + (i % 10), new Party("CPC", 1, 0.01f)));
+				}
+			});
+		}
+		runTogether(tasks);
+
+		assertEquals("Polls with the same name replace each other", 10, list.getNumOfPolls());
+		assertEquals("Snapshot holds each name once", 10, list.snapshot().getNumOfPolls());
+	}
+
+	// Testing party updates
+	@Test(timeout = 60000)
+	public void test_updateParties_manyThreadsSamePolls_noUpdatesLost() throws InterruptedException {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		int numOfPolls = 20;
+		int partiesPerThread = 400;
+		for (int i = 0; i < numOfPolls; i++) {
+			list.addPoll(new Poll("Poll" + i, 1));
+		}
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				for (int k = 0; k < partiesPerThread; k++) {
+					assertTrue(list.updateParties("Poll" + (k % numOfPolls), new Party("T" + thread + "-" + k, 1, 0.001f)));
+				}
+			});
+		}
+		runTogether(tasks);
+
+		for (int i = 0; i < numOfPolls; i++) {
+			Poll poll = list.getPoll("Poll" + i);
+			assertEquals("Every party added to Poll" + i + " is kept", THREADS * partiesPerThread / numOfPolls,
+					poll.getNumberOfParties());
+			for (int t = 0; t < THREADS; t++) {
+				for (int k = i; k < partiesPerThread; k += numOfPolls) {
+					assertNotNull("Party T" + t + "-" + k + " is in Poll" + i, poll.getParty("T" + t + "-" + k));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void test_updateParties_unknownPoll_returnsFalse() {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		assertFalse("No poll to update", list.updateParties("Missing", new Party("CPC", 1, 0.01f)));
+	}
+
+	@Test
+	public void test_addPoll_copiesPoll() {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		Party party = new Party("CPC", 100, 0.3f);
+		list.addPoll(PollListTest.pollWith("Poll", party));
+		party.setProjectedNumberOfSeats(5);
+		assertEquals("Changing the added party does not change the list", 100,
+				list.getPoll("Poll").getParty("CPC").getProjectedNumberOfSeats(), 0.000001);
+	}
+
+	// Testing snapshots
+	@Test(timeout = 60000)
+	public void test_snapshot_whileWriting_alwaysConsistent() throws InterruptedException {
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		list.addPoll(PollListTest.pollWith("Swing", new Party("A", 338, 1), new Party("B", 0, 0)));
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicInteger snapshotsTaken = new AtomicInteger();
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		//Moves seats between A and B, always keeping 338 seats in total
+		tasks.add(() -> {
+			for (int i = 0; i < 200000; i++) {
+				int seats = i % 339;
+				list.updateParties("Swing", new Party("A", seats, seats / 338f), new Party("B", 338 - seats, (338 - seats) / 338f));
+			}
+			done.set(true);
+		});
+		for (int t = 0; t < THREADS / 2; t++) {
+			int thread = t;
+			tasks.add(() -> {
+				for (int i = 0; !done.get(); i++) {
+					list.addPoll(PollListTest.pollWith("Extra" + thread + "-" + i, new Party("C", 1, 0.001f)));
+				}
+			});
+		}
+		for (int t = 0; t < THREADS / 2; t++) {
+			tasks.add(() -> {
+				int lastCount = 0;
+				while (!done.get()) {
+					ConcurrentPollList.Snapshot snapshot = list.snapshot();
+					Poll swing = snapshot.getAggregatePoll(new String[] {"A", "B"});
+					assertEquals("Seats of A and B always add to 338", 338,
+							swing.getParty("A").getProjectedNumberOfSeats() + swing.getParty("B").getProjectedNumberOfSeats(), 0.0001);
+					assertTrue("Snapshots never lose polls", snapshot.getNumOfPolls() >= lastCount);
+					lastCount = snapshot.getNumOfPolls();
+					snapshotsTaken.incrementAndGet();
+				}
+			});
+		}
+		runTogether(tasks);
+
+		assertTrue("Snapshots were taken while writing", snapshotsTaken.get() > 0);
+		assertEquals("Every poll added is in the final snapshot", list.getNumOfPolls(), list.snapshot().getNumOfPolls());
+	}
+
+	@Test
+	public void test_snapshot_visualization_sameAsPollList() {
+		Factory factory = new Factory(338, 1);
+		PollList polls = factory.createRandomPollList(50);
+		ConcurrentPollList list = new ConcurrentPollList(338);
+		for (int i = 0; i < polls.getSlotCount(); i++) {
+			list.addPoll(polls.getPollAt(i));
+		}
+
+		assertEquals("Same visualization by seats", polls.textVisualizationBySeats(), list.textVisualizationBySeats());
+		assertEquals("Same visualization by votes", polls.textVisualizationByVotes(), list.textVisualizationByVotes());
+		assertEquals("Same aggregate", polls.getAggregatePoll(factory.getPartyNames()).textVisualizationBySeats(18, 19),
+				list.getAggregatePoll(factory.getPartyNames()).textVisualizationBySeats(18, 19));
+	}
+}
@@ -1,13 +1,27 @@
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Generates polls and parties for this application randomly.
+ * <p>
+ * Each factory draws all of its random numbers from one SplittableRandom. A factory created with a seed
+ * generates exactly the same polls every time, which makes load tests and benchmarks reproducible.
+ * Apart from the Party, Poll and PollList objects it returns, generating polls doesn't allocate anything.
  * @author Nathaly Verwaal
  *
  */
 public class Factory {
+	//Number of polls createRandomPollListInParallel generates from each block seed
+	private static final int POLLS_PER_BLOCK = 4096;
+
 	private int numOfSeats;
 	private String[] partyNames = {"BQ", "CPC", "Green", "LPC", "NDP", "PPC", "Rhinoceros"};
+	//PartyRegistry ID of each name in partyNames, looked up once when the names are set
+	private int[] partyIds = idsOf(partyNames);
+	private SplittableRandom rand;
+	//Indices into partyNames, shuffled in place for every poll
+	private int[] partyOrder = new int[0];
 	
 	/** 
 	 * Create a factory for an election that has specified number of 
@@ -16,13 +30,41 @@ public class Factory {
 	 */
 	public Factory(int numOfSeats) {
 		this.numOfSeats = numOfSeats;
+		rand = new SplittableRandom();
+	}
+	
+	/** 
+	 * Create a factory for an election that has specified number of seats available in the election polled,
+	 * which generates the same sequence of parties and polls every time it is created with the same seed.
+	 * @param numOfSeats number of seats available in the election that this factory creates polls and parties for
+	 * @param seed the seed for the random numbers used to generate parties and polls
+	 */
+	public Factory(int numOfSeats, long seed) {
+		this.numOfSeats = numOfSeats;
+		rand = new SplittableRandom(seed);
 	}
 	
 	/**
 	 * Set the names of parties participating in the election.
 	 */
 	public void setPartyNames(String[] names) {
-		if (names != null)	partyNames = names;
+		if (names != null) {
+			partyNames = names;
+			partyIds = idsOf(names);
+		}
+	}
+
+	/**
+	 * Looks up the PartyRegistry ID of each name.
+	 * @param names names of parties
+	 * @return array holding the ID of each name, in the same order
+	 */
+	private static int[] idsOf(String[] names) {
+		int[] ids = new int[names.length];
+		for (int index = 0; index < names.length; index++) {
+			ids[index] = PartyRegistry.idOf(names[index]);
+		}
+		return ids;
 	}
 	
 	/**
@@ -51,8 +93,14 @@ public class Factory {
 	 * @return Party that was randomly generated within specified parameters.
 	 */
 	public Party createRandomParty(String name, int maximumSeats, int maximumPercent) {
-		Random rand = new Random();
-		Party p1 = new Party(name);
+		return createRandomParty(name, PartyRegistry.idOf(name), maximumSeats, maximumPercent);
+	}
+
+	/**
+	 * Works like createRandomParty, for a name whose PartyRegistry ID has already been looked up.
+	 */
+	private Party createRandomParty(String name, int partyId, int maximumSeats, int maximumPercent) {
+		Party p1 = new Party(name, partyId);
 		
 		int projectedNumberOfSeats = rand.nextInt((int)(maximumSeats*100) + 1)/100;
 		
@@ -71,21 +119,24 @@ public class Factory {
 	}
 	
 	/**
-	 * Removes the character at specified index from the string and returns the result.
-	 * @param str the string to remove a character from
-	 * @param index the index of the character to remove
-	 * @return the string <code>str</code> with the character at specified index removed.
+	 * Puts the indices into the partyNames array in a random order, using a Fisher-Yates shuffle.
+	 * The same array is reused for every poll.
+	 * @return array holding each index into partyNames once, in random order.
 	 */
-	private String removeChar(String str, int index) {
-		String first = "";
-		String second = "";
-		if (index!= 0 ) {
-			first = str.substring(0,index);
+	private int[] shufflePartyOrder() {
+		if (partyOrder.length != partyNames.length) {
+			partyOrder = new int[partyNames.length];
+		}
+		for (int index = 0; index < partyOrder.length; index++) {
+			partyOrder[index] = index;
 		}
-		if (index != str.length()-1) {
-			second = str.substring(index+1);
+		for (int index = partyOrder.length - 1; index > 0; index--) {
+			int other = rand.nextInt(index + 1);
+			int swap = partyOrder[index];
+			partyOrder[index] = partyOrder[other];
+			partyOrder[other] = swap;
 		}
-		return first + second;
+		return partyOrder;
 	}
 	
 	/**
@@ -98,51 +149,141 @@ public class Factory {
 	 * party will win.
 	 */
 	public Poll createRandomPoll(String name) {
+		long start = Metrics.start();
 		Poll poll = new Poll(name, partyNames.length);
 		
-		// Create all indices into the partyNames array, so we can randomly choose a party.
-		String partyIndices = "";
-		for (int index = 0; index < partyNames.length; index++) {
-			partyIndices += index;
-		}
+		// Randomly order the indices into the partyNames array, so the parties are generated in a random order.
+		int[] order = shufflePartyOrder();
 		
-		Random rand = new Random();
 		int percentLeft = 100;
 		int seatsLeft = numOfSeats;
-		for (int counter = 0; counter < partyNames.length-1; counter++) {
-			// randomly choose an index from the list of indices into the partyNames array
-			int nextIndex = rand.nextInt(partyIndices.length());
-			String index = partyIndices.substring(nextIndex,nextIndex+1);
-
-			// Generate a random party with the randomly chosen name and appropriate random seats and percent
-			Party p = createRandomParty(partyNames[Integer.parseInt(index)], seatsLeft, percentLeft);
+		for (int counter = 0; counter < order.length-1; counter++) {
+			// Generate a random party with the next name in the random order and appropriate random seats and percent
+			Party p = createRandomParty(partyNames[order[counter]], partyIds[order[counter]], seatsLeft, percentLeft);
 			poll.addParty(p);
 			
 			// Setup for next party to generate
 			percentLeft -= p.getProjectedPercentageOfVotes() * 100;
 			seatsLeft -= p.getProjectedNumberOfSeats();
-			
-			// this has the index we used in this iteration removed
-			partyIndices = removeChar(partyIndices, nextIndex);
 		}
 		
 		// There is one party left now, project that it will get the remaining seats and percentage of vote
-		poll.addParty(new Party(partyNames[Integer.parseInt(partyIndices)],seatsLeft,percentLeft/100.0f));
+		Party last = new Party(partyNames[order[order.length-1]], partyIds[order[order.length-1]]);
+		last.setProjectedNumberOfSeats(seatsLeft);
+		last.setProjectedPercentageOfVotes(percentLeft/100.0f);
+		poll.addParty(last);
 		
+		Metrics.FACTORY_CREATE_POLL.record(start);
 		return poll;
 	}
 
 	/**
 	 * Create a poll list with randomly created polls.
-	 * @param numOfPolls the number of polls that will be randomly generated and placed in the list.
+	 * @param numOfPolls the number of polls that will be randomly generated and placed in the list. Zero or less
+	 * gives an empty list.
 	 * @return the PollList with randomly generated polls.
 	 */
 	public PollList createRandomPollList(int numOfPolls) {
-		PollList list = new PollList(numOfPolls,numOfSeats);
+		long start = Metrics.start();
+		PollList list = new PollList(Math.max(1, numOfPolls),numOfSeats);
 		for (int counter = 0; counter < numOfPolls; counter++) {
 			list.addPoll(createRandomPoll("Poll" + counter));
 		}
+		Metrics.FACTORY_CREATE_POLL_LIST.record(start);
 		return list;
 	}
+
+	/**
+	 * Create a poll list with randomly created polls, generating the polls in parallel on the common
+	 * ForkJoinPool and putting them straight into an array of the right size before they are added to the list.
+	 * <p>
+	 * The polls are generated in fixed blocks of polls. Each block gets its own seed, taken in block order from
+	 * this factory's random numbers, so a factory created with a seed gives the same poll list no matter how many
+	 * threads do the work. The polls are not the same ones createRandomPollList would give for that seed.
+	 * @param numOfPolls the number of polls that will be randomly generated and placed in the list. Zero or less
+	 * gives an empty list.
+	 * @return the PollList with randomly generated polls.
+	 */
+	public PollList createRandomPollListInParallel(int numOfPolls) {
+		long start = Metrics.start();
+		numOfPolls = Math.max(0, numOfPolls);
+		int numOfBlocks = (numOfPolls + POLLS_PER_BLOCK - 1) / POLLS_PER_BLOCK;
+		long[] blockSeeds = new long[numOfBlocks];
+		for (int block = 0; block < numOfBlocks; block++) {
+			blockSeeds[block] = rand.nextLong();
+		}
+
+		Poll[] polls = new Poll[numOfPolls];
+		if (numOfBlocks > 0) {
+			ForkJoinPool.commonPool().invoke(new GenerateBlocks(this, blockSeeds, polls, 0, numOfBlocks));
+		}
+
+		PollList list = new PollList(Math.max(1, numOfPolls),numOfSeats);
+		list.addPolls(polls, numOfPolls);
+		Metrics.FACTORY_CREATE_POLL_LIST.record(start);
+		return list;
+	}
+
+	/**
+	 * Create a riding model with one riding for every seat in this election. Each party's share of the votes in
+	 * each riding is random, and the shares in every riding add to 100%.
+	 * @return the RidingModel with randomly generated baseline results.
+	 */
+	public RidingModel createRandomRidingModel() {
+		double[][] shares = new double[numOfSeats][partyNames.length];
+		for (int riding = 0; riding < numOfSeats; riding++) {
+			double total = 0;
+			for (int party = 0; party < partyNames.length; party++) {
+				// Squaring spreads the shares out, so most ridings have a clear leader
+				double weight = rand.nextDouble();
+				shares[riding][party] = weight * weight;
+				total += shares[riding][party];
+			}
+			for (int party = 0; party < partyNames.length; party++) {
+				shares[riding][party] /= total;
+			}
+		}
+		return new RidingModel(partyNames, null, shares);
+	}
+
+	/**
+	 * Fork-join task that generates the polls of a range of blocks. Each block is generated by its own
+	 * factory seeded with the block's seed, so no random numbers or buffers are shared between threads.
+	 */
+	private static class GenerateBlocks extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private Factory template;
+		private long[] blockSeeds;
+		private Poll[] polls;
+		private int fromBlock;
+		private int toBlock;
+
+		GenerateBlocks(Factory template, long[] blockSeeds, Poll[] polls, int fromBlock, int toBlock) {
+			this.template = template;
+			this.blockSeeds = blockSeeds;
+			this.polls = polls;
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+		}
+
+		@Override
+		protected void compute() {
+			if (toBlock - fromBlock > 1) {
+				int middle = (fromBlock + toBlock) >>> 1;
+				invokeAll(new GenerateBlocks(template, blockSeeds, polls, fromBlock, middle),
+						new GenerateBlocks(template, blockSeeds, polls, middle, toBlock));
+				return;
+			}
+
+			Factory blockFactory = new Factory(template.numOfSeats, blockSeeds[fromBlock]);
+			blockFactory.setPartyNames(template.partyNames);
+			int from = fromBlock * POLLS_PER_BLOCK;
+			int to = Math.min(polls.length, from + POLLS_PER_BLOCK);
+			for (int counter = from; counter < to; counter++) {
+				polls[counter] = blockFactory.createRandomPoll("Poll" + counter);
+			}
+		}
+	}
 	
 }
@@ -0,0 +1,55 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FactoryTest {
+
+	private static void assertSamePolls(PollList expected, PollList actual) {
+		Poll[] expectedPolls = expected.toArray();
+		Poll[] actualPolls = actual.toArray();
+		assertEquals(expectedPolls.length, actualPolls.length);
+		for (int i = 0; i < expectedPolls.length; i++) {
+			assertEquals(expectedPolls[i].getPollName(), actualPolls[i].getPollName());
+			assertEquals(expectedPolls[i].getNumberOfParties(), actualPolls[i].getNumberOfParties());
+			for (int j = 0; j < expectedPolls[i].getNumberOfParties(); j++) {
+				Party party = expectedPolls[i].getParties()[j];
+				Party same = actualPolls[i].getParties()[j];
+				assertEquals(party.getName(), same.getName());
+				assertEquals(party.getProjectedNumberOfSeats(), same.getProjectedNumberOfSeats(), 0);
+				assertEquals(party.getProjectedPercentageOfVotes(), same.getProjectedPercentageOfVotes(), 0);
+			}
+		}
+	}
+
+	// Testing that a seed always gives the same polls
+	@Test
+	public void test_createRandomPollList_sameSeed_sameList() {
+		PollList first = new Factory(338, 42).createRandomPollList(50);
+		PollList second = new Factory(338, 42).createRandomPollList(50);
+		assertEquals(50, first.getNumOfPolls());
+		assertSamePolls(first, second);
+		assertNotEquals("A different seed gives different polls", first.textVisualizationByVotes(),
+				new Factory(338, 43).createRandomPollList(50).textVisualizationByVotes());
+	}
+
+	@Test
+	public void test_createRandomPollListInParallel_sameSeed_sameList() {
+		//More than one block of polls, so the blocks may be generated on different threads
+		PollList first = new Factory(338, 42).createRandomPollListInParallel(10000);
+		PollList second = new Factory(338, 42).createRandomPollListInParallel(10000);
+		assertEquals(10000, first.getNumOfPolls());
+		assertSamePolls(first, second);
+	}
+
+	@Test
+	public void test_createRandomPollList_negativeCount_emptyList() {
+		Factory factory = new Factory(338, 42);
+		PollList sequential = factory.createRandomPollList(-1);
+		assertEquals(0, sequential.getNumOfPolls());
+		assertEquals(338, sequential.getNumOfSeats());
+		PollList parallel = factory.createRandomPollListInParallel(-1);
+		assertEquals(0, parallel.getNumOfPolls());
+		assertEquals(338, parallel.getNumOfSeats());
+		assertEquals(0, factory.createRandomPollListInParallel(0).getNumOfPolls());
+	}
+}
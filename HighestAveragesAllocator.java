@@ -0,0 +1,88 @@
+/**
+ * Highest averages seat allocation. Each seat goes to the party with the highest average, its votes divided by
+ * a divisor that grows with the seats it has already won: 1, 2, 3, ... for D'Hondt and 1, 3, 5, ... for
+ * Sainte-Lague. The parties are kept in a binary heap of party indices ordered by their current averages, so
+ * each seat takes O(log parties).
+ * <p>
+ * Handing out every seat through the heap would take O(seats log parties), so each party is first given a number
+ * of seats it is certain to win. With divisors of the form step * (seats + c), a party's seats can differ from
+ * its votes times (seats - parties * (1 - c)) / total votes, minus c, by less than one, so the whole part of that
+ * is always won. This leaves at most about two seats per party for the heap, and gives the same result as handing
+ * out every seat one at a time, ties included, since every seat given out first beats every seat that isn't.
+ */
+class HighestAveragesAllocator implements SeatAllocator {
+	//How much a party's divisor grows for every seat it wins, the first divisor is always 1
+	private final int divisorStep;
+
+	HighestAveragesAllocator(int divisorStep) {
+		this.divisorStep = divisorStep;
+	}
+
+	@Override
+	public void allocate(double[] votes, int numOfParties, int numOfSeats, int[] seats, Workspace work) {
+		work.ensureCapacity(numOfParties);
+		int[] heap = work.order;
+		double[] averages = work.keys;
+
+		double totalVotes = 0;
+		for (int party = 0; party < numOfParties; party++) {
+			totalVotes += votes[party];
+		}
+
+		//Seats each party is certain to win, see the class comment
+		double offset = 1.0 / divisorStep;
+		double seatsPerVote = (numOfSeats - numOfParties * (1 - offset)) / totalVotes;
+		int seatsLeft = numOfSeats;
+		for (int party = 0; party < numOfParties; party++) {
+			seats[party] = (totalVotes > 0) ? Math.max(0, (int) Math.floor(votes[party] * seatsPerVote - offset)) : 0;
+			seatsLeft -= seats[party];
+			averages[party] = votes[party] / (divisorStep * seats[party] + 1);
+			heap[party] = party;
+		}
+
+		if (totalVotes <= 0) {
+			return;
+		}
+
+		for (int index = numOfParties / 2 - 1; index >= 0; index--) {
+			siftDown(heap, averages, index, numOfParties);
+		}
+
+		//The top party gets the seat, and sinks to its place for its new, smaller average
+		for (; seatsLeft > 0; seatsLeft--) {
+			int party = heap[0];
+			seats[party]++;
+			averages[party] = votes[party] / (divisorStep * seats[party] + 1);
+			siftDown(heap, averages, 0, numOfParties);
+		}
+	}
+
+	/**
+	 * Moves the party at an index of the heap down until no party below it has a higher average.
+	 */
+	private static void siftDown(int[] heap, double[] averages, int index, int size) {
+		int party = heap[index];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && ranksAbove(averages, heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!ranksAbove(averages, heap[child], party)) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = party;
+	}
+
+	/**
+	 * Tells if party a has a higher average than party b, or the same average and comes first.
+	 */
+	private static boolean ranksAbove(double[] averages, int a, int b) {
+		return averages[a] > averages[b] || (averages[a] == averages[b] && a < b);
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * Largest remainder seat allocation with the Hare quota. Each party first gets the whole part of its share of the
+ * seats. Fewer seats than parties are left over, and they go to the parties with the largest fractions left. The
+ * remainders are kept in the workspace, and each seat left over is given by looking through them, which for the
+ * few parties of an election is quicker than building a heap.
+ */
+class LargestRemainderAllocator implements SeatAllocator {
+
+	@Override
+	public void allocate(double[] votes, int numOfParties, int numOfSeats, int[] seats, Workspace work) {
+		work.ensureCapacity(numOfParties);
+		double[] remainders = work.keys;
+
+		double totalVotes = 0;
+		for (int party = 0; party < numOfParties; party++) {
+			totalVotes += votes[party];
+		}
+		if (totalVotes <= 0) {
+			for (int party = 0; party < numOfParties; party++) {
+				seats[party] = 0;
+			}
+			return;
+		}
+
+		int seatsLeft = numOfSeats;
+		double seatsPerVote = numOfSeats / totalVotes;
+		for (int party = 0; party < numOfParties; party++) {
+			double quota = votes[party] * seatsPerVote;
+			seats[party] = Math.min((int) quota, seatsLeft);
+			remainders[party] = quota - seats[party];
+			seatsLeft -= seats[party];
+		}
+
+		//At most one seat per party is left over, a party that got one is marked with a remainder below any other
+		while (seatsLeft > 0) {
+			int best = 0;
+			for (int party = 1; party < numOfParties; party++) {
+				if (remainders[party] > remainders[best]) {
+					best = party;
+				}
+			}
+			seats[best]++;
+			remainders[best] = -1;
+			seatsLeft--;
+		}
+	}
+}
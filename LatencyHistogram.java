@@ -0,0 +1,138 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long an operation took in buckets of roughly equal relative width, the same layout HDR histograms
+ * use, so percentiles of latencies from nanoseconds to minutes can be found from a fixed, small array.
+ * <p>
+ * Values below 32 each get their own bucket. Above that, every power of two is split into 16 buckets of equal
+ * width, so a value is known to within 1/16 (about 6%) of itself. Any number of threads can record at once: each
+ * bucket is an atomic counter, and the total and sum are kept in LongAdders so they aren't fought over.
+ */
+public final class LatencyHistogram {
+	//Number of bits of a value kept below its highest bit, giving 16 buckets per power of two
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	//Enough buckets for the largest long
+	private static final int NUM_OF_BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	//Instance variables
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_OF_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Counts one value.
+	 * @param value The value, such as a latency in nanoseconds, values below 0 are counted as 0
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		buckets.getAndIncrement(bucketOf(value));
+		count.increment();
+		sum.add(value);
+		//Only written when a new highest value is seen, which soon stops happening
+		long highest = max.get();
+		while (value > highest && !max.compareAndSet(highest, value)) {
+			highest = max.get();
+		}
+	}
+
+	/**
+	 * Finds the bucket of a value.
+	 * @param value A value of at least 0
+	 * @return Index of the bucket
+	 */
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Gives the smallest value counted in a bucket.
+	 * @param bucket Index of the bucket
+	 * @return Smallest value of the bucket
+	 */
+	static long lowestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+	}
+
+	/**
+	 * Getter methods: getCount returns the number of values counted
+	 * getMax returns the highest value counted, or 0 if there are none
+	 * getMean returns the average value, or 0 if there are none
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long values = count.sum();
+		return (values == 0) ? 0 : (double) sum.sum() / values;
+	}
+
+	/**
+	 * Gives the value that the given percentage of the counted values are at or below. The middle of the bucket
+	 * holding it is given, never more than the highest value counted. Values counted while this runs may or may
+	 * not be included.
+	 * @param percentile Percentile between 0 and 100
+	 * @return The value, or 0 if nothing has been counted or the percentile is invalid
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			System.out.println("Error: getPercentile was called with an invalid argument: percentile must be between 0 and 100");
+			return 0;
+		}
+
+		//The buckets are added up first, so the total matches the buckets even while other threads record
+		long total = 0;
+		for (int bucket = 0; bucket < NUM_OF_BUCKETS; bucket++) {
+			total += buckets.get(bucket);
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long needed = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long seen = 0;
+		for (int bucket = 0; bucket < NUM_OF_BUCKETS; bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= needed) {
+				long lowest = lowestValueOf(bucket);
+				long width = (bucket + 1 < NUM_OF_BUCKETS) ? lowestValueOf(bucket + 1) - lowest : 0;
+				return Math.min(max.get(), lowest + width / 2);
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Throws away every value counted so far. Values counted by other threads at the same time may be kept.
+	 */
+	public void reset() {
+		for (int bucket = 0; bucket < NUM_OF_BUCKETS; bucket++) {
+			buckets.set(bucket, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+}
@@ -0,0 +1,379 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Binary file of polls that is read through memory mapping, so archives of polls larger than the heap
+ * can be aggregated without creating a Poll or Party object for every record.
+ * <p>
+ * File layout, all numbers big-endian:
+ * <pre>
+ * header       int magic, int version, int numOfSeats, int numOfParties,
+ *              long numOfPolls, long pollNamesOffset, long partyNamesOffset
+ * records      one record per poll: long offset of the poll name, then for every party id
+ *              float seats and float votes (NaN when the party is not in the poll)
+ * poll names   int length and UTF-8 bytes of each poll name, a length of -1 and no bytes for a poll without one
+ * party names  int length and UTF-8 bytes of each party name, in party id order
+ * </pre>
+ * Every record has the same width, so the data of a party in a poll is found by arithmetic.
+ * Only the party names are read onto the heap when a store is opened. Party colours are not stored.
+ */
+public class MappedPollStore implements AutoCloseable {
+	private static final int MAGIC = 0x504c5354;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 40;
+	//Largest part of the records mapped as one buffer, a MappedByteBuffer can't be larger than 2GB
+	private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+	//Instance variables
+	private FileChannel channel;
+	private int numOfSeats;
+	private int numOfParties;
+	private long numOfPolls;
+	private int recordSize;
+	private long recordsPerSegment;
+	private MappedByteBuffer[] segments;
+	private String[] partyNames;
+	//Maps the lower case name of each party to its party id
+	private HashMap<String, Integer> partyIds = new HashMap<String, Integer>();
+
+	/**
+	 * Opens a store written by write and maps its records into memory.
+	 * @param file Path of the store
+	 * @throws IOException If the file can't be read or is not a poll store
+	 */
+	public MappedPollStore(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			readFully(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC) {
+				throw new IOException(file + " is not a poll store");
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException(file + " has unsupported poll store version " + version);
+			}
+
+			numOfSeats = header.getInt();
+			numOfParties = header.getInt();
+			numOfPolls = header.getLong();
+			header.getLong();
+			long partyNamesOffset = header.getLong();
+			recordSize = recordSize(numOfParties);
+
+			partyNames = readPartyNames(partyNamesOffset);
+			for (int partyId = 0; partyId < numOfParties; partyId++) {
+				partyIds.put(Poll.nameKey(partyNames[partyId]), partyId);
+			}
+
+			recordsPerSegment = Math.max(1, MAX_SEGMENT_SIZE / recordSize);
+			int numOfSegments = (int) ((numOfPolls + recordsPerSegment - 1) / recordsPerSegment);
+			segments = new MappedByteBuffer[numOfSegments];
+			for (int i = 0; i < numOfSegments; i++) {
+				long firstRecord = i * recordsPerSegment;
+				long records = Math.min(recordsPerSegment, numOfPolls - firstRecord);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstRecord * recordSize,
+						records * recordSize);
+			}
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives the width in bytes of the record of one poll.
+	 * @param numOfParties Number of parties in the store
+	 * @return Record width
+	 */
+	private static int recordSize(int numOfParties) {
+		return 8 + 8 * numOfParties;
+	}
+
+	/**
+	 * Reads from the channel until the buffer is full.
+	 * @param buffer Buffer to fill
+	 * @param position Position in the file to read from
+	 * @throws IOException If the file ends first
+	 */
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Poll store ended unexpectedly");
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Reads the party names at the end of the file.
+	 * @param offset Position of the party names
+	 * @return The names in party id order
+	 * @throws IOException If the file can't be read
+	 */
+	private String[] readPartyNames(long offset) throws IOException {
+		ByteBuffer names = ByteBuffer.allocate((int) (channel.size() - offset));
+		readFully(names, offset);
+		names.flip();
+
+		String[] result = new String[numOfParties];
+		for (int partyId = 0; partyId < numOfParties; partyId++) {
+			byte[] bytes = new byte[names.getInt()];
+			names.get(bytes);
+			result[partyId] = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes every poll in a PollList to a new store, replacing the file if it exists. The records and poll
+	 * names are written through two buffers in a single pass over the polls.
+	 * @param file Path of the store to write
+	 * @param list The polls to write
+	 * @throws IOException If the file can't be written
+	 */
+	public static void write(Path file, PollList list) throws IOException {
+		//Give every party in the list a party id, so the width of the records is known before writing them
+		HashMap<String, Integer> partyIds = new HashMap<String, Integer>();
+		String[] partyNames = new String[8];
+		int slots = list.getSlotCount();
+		for (int i = 0; i < slots; i++) {
+			Poll poll = list.getPollAt(i);
+			if (poll != null) {
+				Party[] parties = poll.getParties();
+				for (int j = 0; j < poll.getNumberOfParties(); j++) {
+					String key = Poll.nameKey(parties[j].getName());
+					if (!partyIds.containsKey(key)) {
+						if (partyIds.size() == partyNames.length) {
+							partyNames = Arrays.copyOf(partyNames, partyNames.length * 2);
+						}
+						partyNames[partyIds.size()] = parties[j].getName();
+						partyIds.put(key, partyIds.size());
+					}
+				}
+			}
+		}
+
+		int numOfParties = partyIds.size();
+		long numOfPolls = list.getNumOfPolls();
+		int recordSize = recordSize(numOfParties);
+		long pollNamesOffset = HEADER_SIZE + numOfPolls * recordSize;
+
+		try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer records = ByteBuffer.allocate(Math.max(1 << 16, recordSize));
+			ByteBuffer names = ByteBuffer.allocate(1 << 16);
+			long recordPosition = HEADER_SIZE;
+			long namePosition = pollNamesOffset;
+			float[] seats = new float[numOfParties];
+			float[] votes = new float[numOfParties];
+
+			for (int i = 0; i < slots; i++) {
+				Poll poll = list.getPollAt(i);
+				if (poll == null) {
+					continue;
+				}
+
+				Arrays.fill(seats, Float.NaN);
+				Arrays.fill(votes, Float.NaN);
+				Party[] parties = poll.getParties();
+				for (int j = 0; j < poll.getNumberOfParties(); j++) {
+					int partyId = partyIds.get(Poll.nameKey(parties[j].getName()));
+					seats[partyId] = parties[j].getProjectedNumberOfSeats();
+					votes[partyId] = parties[j].getProjectedPercentageOfVotes();
+				}
+
+				if (records.remaining() < recordSize) {
+					recordPosition += flush(out, records, recordPosition);
+				}
+				records.putLong(namePosition + names.position());
+				for (int partyId = 0; partyId < numOfParties; partyId++) {
+					records.putFloat(seats[partyId]);
+					records.putFloat(votes[partyId]);
+				}
+
+				String pollName = poll.getPollName();
+				byte[] name = (pollName == null) ? new byte[0] : pollName.getBytes(StandardCharsets.UTF_8);
+				if (names.remaining() < 4 + name.length) {
+					namePosition += flush(out, names, namePosition);
+					if (names.capacity() < 4 + name.length) {
+						names = ByteBuffer.allocate(4 + name.length);
+					}
+				}
+				names.putInt((pollName == null) ? -1 : name.length);
+				names.put(name);
+			}
+
+			flush(out, records, recordPosition);
+			namePosition += flush(out, names, namePosition);
+
+			//Party names go after the poll names
+			long partyNamesOffset = namePosition;
+			for (int partyId = 0; partyId < numOfParties; partyId++) {
+				byte[] name = partyNames[partyId].getBytes(StandardCharsets.UTF_8);
+				if (names.remaining() < 4 + name.length) {
+					namePosition += flush(out, names, namePosition);
+					if (names.capacity() < 4 + name.length) {
+						names = ByteBuffer.allocate(4 + name.length);
+					}
+				}
+				names.putInt(name.length);
+				names.put(name);
+			}
+			flush(out, names, namePosition);
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(list.getNumOfSeats()).putInt(numOfParties)
+				.putLong(numOfPolls).putLong(pollNamesOffset).putLong(partyNamesOffset);
+			flush(out, header, 0);
+		}
+	}
+
+	/**
+	 * Writes the contents of a buffer at a position in the file and empties the buffer.
+	 * @param out Channel to write to
+	 * @param buffer Buffer holding the bytes to write
+	 * @param position Position in the file
+	 * @return Number of bytes written
+	 * @throws IOException If the file can't be written
+	 */
+	private static int flush(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+		buffer.flip();
+		int written = buffer.remaining();
+		while (buffer.hasRemaining()) {
+			position += out.write(buffer, position);
+		}
+		buffer.clear();
+		return written;
+	}
+
+	/**
+	 * Getter methods for the number of seats, polls and parties in the store.
+	 */
+	public int getNumOfSeats() {
+		return numOfSeats;
+	}
+
+	public long getNumOfPolls() {
+		return numOfPolls;
+	}
+
+	public int getNumOfParties() {
+		return numOfParties;
+	}
+
+	/**
+	 * Finds the party id for a party name, ignoring case.
+	 * @param partyName Name of a party
+	 * @return The party id, or -1 if no poll in the store has that party
+	 */
+	public int getPartyId(String partyName) {
+		Integer partyId = (partyName == null) ? null : partyIds.get(Poll.nameKey(partyName));
+		return (partyId == null) ? -1 : partyId;
+	}
+
+	/**
+	 * Creates a new Party holding the average seats and votes of the named party over the polls it is in,
+	 * the same way as PollList.getAveragePartyData. The records are scanned in place.
+	 * @param partyName Name of party
+	 * @return New Party with the average data
+	 */
+	public Party getAveragePartyData(String partyName) {
+		return getAggregatePoll(new String[] {partyName}).getParty(partyName);
+	}
+
+	/**
+	 * Creates a poll called Aggregate with the average party data of each named party, in the same order.
+	 * All the parties are added up in one scan over the mapped records.
+	 * @param partyNames Names of the parties
+	 * @return Poll representing aggregate data of all polls in the store
+	 */
+	public Poll getAggregatePoll(String[] partyNames) {
+		int[] partyIdsToSum = new int[partyNames.length];
+		for (int i = 0; i < partyNames.length; i++) {
+			partyIdsToSum[i] = getPartyId(partyNames[i]);
+		}
+
+		double[] seatSums = new double[partyNames.length];
+		double[] voteSums = new double[partyNames.length];
+		long[] counts = new long[partyNames.length];
+
+		for (MappedByteBuffer segment : segments) {
+			int limit = segment.limit();
+			for (int record = 0; record < limit; record += recordSize) {
+				for (int i = 0; i < partyIdsToSum.length; i++) {
+					if (partyIdsToSum[i] >= 0) {
+						int offset = record + 8 + 8 * partyIdsToSum[i];
+						float seats = segment.getFloat(offset);
+						if (!Float.isNaN(seats)) {
+							seatSums[i] += seats;
+							voteSums[i] += segment.getFloat(offset + 4);
+							counts[i]++;
+						}
+					}
+				}
+			}
+		}
+
+		Poll aggregate = new Poll("Aggregate", partyNames.length);
+		for (int i = 0; i < partyNames.length; i++) {
+			Party average = new Party(partyNames[i]);
+			if (counts[i] > 0) {
+				average.setProjectedPercentageOfVotes((float) (voteSums[i] / counts[i]));
+				average.setProjectedNumberOfSeats((float) (seatSums[i] / counts[i]));
+			}
+			aggregate.addParty(average);
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Reads one poll out of the store as a Poll, with its parties in party id order.
+	 * @param index Poll number, from 0 to getNumOfPolls() - 1
+	 * @return New Poll
+	 * @throws IOException If the poll name can't be read
+	 */
+	public Poll getPoll(long index) throws IOException {
+		MappedByteBuffer segment = segments[(int) (index / recordsPerSegment)];
+		int record = (int) (index % recordsPerSegment) * recordSize;
+
+		ByteBuffer length = ByteBuffer.allocate(4);
+		long nameOffset = segment.getLong(record);
+		readFully(length, nameOffset);
+		String pollName = null;
+		if (length.getInt(0) >= 0) {
+			ByteBuffer name = ByteBuffer.allocate(length.getInt(0));
+			readFully(name, nameOffset + 4);
+			pollName = new String(name.array(), StandardCharsets.UTF_8);
+		}
+
+		Poll poll = new Poll(pollName, numOfParties);
+		for (int partyId = 0; partyId < numOfParties; partyId++) {
+			float seats = segment.getFloat(record + 8 + 8 * partyId);
+			if (!Float.isNaN(seats)) {
+				poll.addParty(new Party(partyNames[partyId], seats, segment.getFloat(record + 12 + 8 * partyId)));
+			}
+		}
+		return poll;
+	}
+
+	/**
+	 * Closes the file. The mapped records stay readable until they are garbage collected, but the store
+	 * shouldn't be used after it is closed.
+	 * @throws IOException If the file can't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,89 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class MappedPollStoreTest {
+
+	private static final float DELTA = 0.0001f;
+
+	// Testing that the mapped records give the same averages as the PollList that was written
+	@Test
+	public void test_getAggregatePoll_sameAsPollList() throws IOException {
+		Factory factory = new Factory(338, 10);
+		PollList list = factory.createRandomPollList(300);
+		for (int i = 0; i < 5; i++) {
+			Poll partial = new Poll("Partial" + i, 1);
+			partial.addParty(new Party("Store Only", 10 + i, 0.02f));
+			list.addPoll(partial);
+		}
+		for (int i = 0; i < 300; i += 4) {
+			list.removePoll("Poll" + i);
+		}
+		String[] names = Arrays.copyOf(factory.getPartyNames(), factory.getPartyNames().length + 2);
+		names[names.length - 2] = "STORE ONLY";
+		names[names.length - 1] = "Not In Any Poll";
+
+		Path file = Files.createTempFile("polls", ".store");
+		try {
+			MappedPollStore.write(file, list);
+			try (MappedPollStore store = new MappedPollStore(file)) {
+				assertEquals(list.getNumOfPolls(), store.getNumOfPolls());
+				assertEquals(338, store.getNumOfSeats());
+				assertEquals(-1, store.getPartyId("Not In Any Poll"));
+
+				Poll expected = list.getAggregatePoll(names);
+				Poll actual = store.getAggregatePoll(names);
+				for (String name : names) {
+					assertEquals("Votes of " + name, expected.getParty(name).getProjectedPercentageOfVotes(),
+							actual.getParty(name).getProjectedPercentageOfVotes(), DELTA);
+					assertEquals("Seats of " + name, expected.getParty(name).getProjectedNumberOfSeats(),
+							actual.getParty(name).getProjectedNumberOfSeats(), DELTA);
+				}
+				assertEquals(12, store.getAveragePartyData("Store Only").getProjectedNumberOfSeats(), DELTA);
+
+				Poll[] polls = list.toArray();
+				for (int i = 0; i < polls.length; i += 50) {
+					Poll stored = store.getPoll(i);
+					assertEquals("Polls are stored in list order", polls[i].getPollName(), stored.getPollName());
+					assertEquals(polls[i].getNumberOfParties(), stored.getNumberOfParties());
+				}
+				Poll partial = store.getPoll(polls.length - 1);
+				assertEquals("Partial4", partial.getPollName());
+				assertEquals(14, partial.getParty("Store Only").getProjectedNumberOfSeats(), 0);
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void test_getPoll_pollWithoutName_readBackWithoutName() throws IOException {
+		PollList list = new PollList(3, 338);
+		Poll unnamed = new Poll(null, 1);
+		unnamed.addParty(new Party("Store Unnamed", 20, 0.1f));
+		list.addPoll(unnamed);
+		Poll empty = new Poll("", 1);
+		empty.addParty(new Party("Store Unnamed", 30, 0.2f));
+		list.addPoll(empty);
+
+		Path file = Files.createTempFile("polls", ".store");
+		try {
+			MappedPollStore.write(file, list);
+			try (MappedPollStore store = new MappedPollStore(file)) {
+				assertEquals(2, store.getNumOfPolls());
+				assertNull("A poll without a name isn't read back as \"null\"", store.getPoll(0).getPollName());
+				assertEquals(20, store.getPoll(0).getParty("Store Unnamed").getProjectedNumberOfSeats(), 0);
+				assertEquals("An empty name stays empty", "", store.getPoll(1).getPollName());
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
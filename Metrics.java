@@ -0,0 +1,170 @@
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts the calls of the tracker's busiest operations and how long they take, so throughput and latency can be
+ * watched while the program runs. Each operation has an OperationMetrics, kept in a constant here.
+ * <p>
+ * Metrics are off unless the program is started with -Dpolltracker.metrics=true or setEnabled(true) is called.
+ * While they are off, an instrumented method reads one volatile flag and nothing else. When the class is first
+ * used it registers every operation as a platform MBean, named polltracker:type=Operation,name= followed by the
+ * operation's name, along with polltracker:type=Metrics to turn them on and off, so jconsole or any other JMX
+ * client can read them and turn them on without restarting the program.
+ */
+public final class Metrics {
+	/**
+	 * What start gives while metrics are off, telling record not to count the call.
+	 */
+	public static final long NOT_TIMED = Long.MIN_VALUE;
+
+	//Instrumented operations
+	public static final OperationMetrics POLL_ADD_PARTY = new OperationMetrics("Poll.addParty");
+	public static final OperationMetrics POLL_VISUALIZATION_BY_SEATS = new OperationMetrics("Poll.textVisualizationBySeats");
+	public static final OperationMetrics POLL_VISUALIZATION_BY_VOTES = new OperationMetrics("Poll.textVisualizationByVotes");
+	public static final OperationMetrics LIST_ADD_POLL = new OperationMetrics("PollList.addPoll");
+	public static final OperationMetrics LIST_AGGREGATE_POLL = new OperationMetrics("PollList.getAggregatePoll");
+	public static final OperationMetrics LIST_VISUALIZATION_BY_SEATS = new OperationMetrics("PollList.textVisualizationBySeats");
+	public static final OperationMetrics LIST_VISUALIZATION_BY_VOTES = new OperationMetrics("PollList.textVisualizationByVotes");
+	public static final OperationMetrics FACTORY_CREATE_POLL = new OperationMetrics("Factory.createRandomPoll");
+	//Counts createRandomPollListInParallel as well
+	public static final OperationMetrics FACTORY_CREATE_POLL_LIST = new OperationMetrics("Factory.createRandomPollList");
+
+	private static final OperationMetrics[] operations = {
+			POLL_ADD_PARTY, POLL_VISUALIZATION_BY_SEATS, POLL_VISUALIZATION_BY_VOTES,
+			LIST_ADD_POLL, LIST_AGGREGATE_POLL, LIST_VISUALIZATION_BY_SEATS, LIST_VISUALIZATION_BY_VOTES,
+			FACTORY_CREATE_POLL, FACTORY_CREATE_POLL_LIST};
+
+	//Only changed while holding the lock on the class
+	private static volatile boolean enabled;
+
+	static {
+		registerMBeans();
+		if (Boolean.getBoolean("polltracker.metrics")) {
+			setEnabled(true);
+		}
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * Gives the time an instrumented call begins, to be passed to OperationMetrics.record when it ends.
+	 * @return The current System.nanoTime(), or NOT_TIMED if metrics are off
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : NOT_TIMED;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns the timing of instrumented operations on or off. Counts so far are kept, and throughput only counts
+	 * the time metrics were on.
+	 * @param enabled True to turn metrics on
+	 */
+	public static synchronized void setEnabled(boolean enabled) {
+		if (enabled == Metrics.enabled) {
+			return;
+		}
+
+		long now = System.nanoTime();
+		if (enabled) {
+			for (OperationMetrics operation : operations) {
+				operation.startClock(now);
+			}
+			Metrics.enabled = true;
+		}
+
+		else {
+			Metrics.enabled = false;
+			for (OperationMetrics operation : operations) {
+				operation.stopClock(now);
+			}
+		}
+	}
+
+	/**
+	 * Gives a copy of the metrics of every instrumented operation.
+	 * @return Array of the operations, in the order they are reported
+	 */
+	public static OperationMetrics[] getOperations() {
+		return operations.clone();
+	}
+
+	/**
+	 * Throws away the counts and latencies of every operation.
+	 */
+	public static void reset() {
+		for (OperationMetrics operation : operations) {
+			operation.reset();
+		}
+	}
+
+	/**
+	 * Gives a summary with a line for each operation that has been timed.
+	 * @return Summary of each operation's count, throughput and latencies
+	 */
+	public static String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append("Metrics are ").append(enabled ? "on" : "off").append('\n');
+		for (OperationMetrics operation : operations) {
+			if (operation.getCount() == 0) {
+				continue;
+			}
+			report.append(operation.getName())
+					.append(": ").append(operation.getCount()).append(" calls")
+					.append(", ").append(String.format("%.1f", operation.getThroughputPerSecond())).append("/s")
+					.append(", p50 ").append(String.format("%.2f", operation.getP50Micros())).append(" us")
+					.append(", p99 ").append(String.format("%.2f", operation.getP99Micros())).append(" us")
+					.append(", max ").append(String.format("%.2f", operation.getMaxMicros())).append(" us\n");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Registers every operation and the control MBean with the platform MBean server.
+	 */
+	private static void registerMBeans() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new Control(), new ObjectName("polltracker:type=Metrics"));
+			for (OperationMetrics operation : operations) {
+				server.registerMBean(operation, new ObjectName("polltracker:type=Operation,name=" + operation.getName()));
+			}
+		}
+		catch (JMException | SecurityException e) {
+			//The metrics still work without JMX, through getReport and getOperations
+			System.out.println("Error: metrics could not be registered with JMX: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The MBean that turns metrics on and off.
+	 */
+	private static class Control implements MetricsMXBean {
+		@Override
+		public boolean isEnabled() {
+			return Metrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			Metrics.setEnabled(enabled);
+		}
+
+		@Override
+		public String getReport() {
+			return Metrics.getReport();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+}
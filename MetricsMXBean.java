@@ -0,0 +1,28 @@
+/**
+ * What JMX clients such as jconsole see of the metrics as a whole: whether calls are being timed, and a way to
+ * reset every operation at once.
+ */
+public interface MetricsMXBean {
+	/**
+	 * Gives whether instrumented operations are being timed.
+	 * @return True if metrics are turned on
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Turns the timing of instrumented operations on or off. Counts so far are kept.
+	 * @param enabled True to turn metrics on
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * Gives a summary with a line for each operation.
+	 * @return Summary of every operation's count, throughput and latencies
+	 */
+	String getReport();
+
+	/**
+	 * Throws away the counts and latencies of every operation.
+	 */
+	void reset();
+}
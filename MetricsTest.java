@@ -0,0 +1,102 @@
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MetricsTest {
+
+	@After
+	public void turnOff() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+
+	// Testing the histogram
+	@Test
+	public void test_latencyHistogram_percentilesWithinBucketWidth() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 100000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0.0001);
+		assertEquals("Median within 1/16 of 50000", 50000, histogram.getPercentile(50), 50000 / 16);
+		assertEquals("99th percentile within 1/16 of 99000", 99000, histogram.getPercentile(99), 99000 / 16);
+		assertEquals("Small values are exact", 1, histogram.getPercentile(0));
+	}
+
+	@Test
+	public void test_latencyHistogram_bucketsCoverEveryValue() {
+		long[] values = {0, 31, 32, 33, 1000, 1L << 40, Long.MAX_VALUE};
+		for (long value : values) {
+			int bucket = LatencyHistogram.bucketOf(value);
+			assertTrue("Bucket of " + value + " starts at or below it", LatencyHistogram.lowestValueOf(bucket) <= value);
+			if (value < Long.MAX_VALUE) {
+				assertTrue("Next bucket of " + value + " starts above it", LatencyHistogram.lowestValueOf(bucket + 1) > value);
+			}
+		}
+	}
+
+	// Testing the instrumented operations
+	@Test
+	public void test_metrics_countOnlyWhileEnabled() {
+		Factory factory = new Factory(338, 1);
+		factory.createRandomPollList(10);
+		assertEquals("Nothing is counted while metrics are off", 0, Metrics.LIST_ADD_POLL.getCount());
+
+		Metrics.setEnabled(true);
+		PollList list = factory.createRandomPollList(10);
+		assertEquals("Seven parties in each poll", 70, Metrics.POLL_ADD_PARTY.getCount());
+		list.getAggregatePoll(factory.getPartyNames());
+		list.textVisualizationBySeats();
+		assertEquals(10, Metrics.LIST_ADD_POLL.getCount());
+		assertEquals(10, Metrics.FACTORY_CREATE_POLL.getCount());
+		assertEquals(1, Metrics.LIST_AGGREGATE_POLL.getCount());
+		assertEquals(1, Metrics.LIST_VISUALIZATION_BY_SEATS.getCount());
+		assertTrue(Metrics.getReport().contains("PollList.addPoll: 10 calls"));
+	}
+
+	@Test
+	public void test_metrics_throughputOnlyCountsTimeOn() throws InterruptedException {
+		Metrics.setEnabled(true);
+		new Factory(338, 1).createRandomPollList(10);
+		Metrics.setEnabled(false);
+		double throughput = Metrics.LIST_ADD_POLL.getThroughputPerSecond();
+		assertTrue(throughput > 0);
+		Thread.sleep(20);
+		assertEquals("Time with metrics off isn't counted", throughput, Metrics.LIST_ADD_POLL.getThroughputPerSecond(), 0);
+	}
+
+	@Test
+	public void test_metrics_registeredWhileOff() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName control = new ObjectName("polltracker:type=Metrics");
+		assertFalse(Metrics.isEnabled());
+		assertTrue("Registered before metrics are turned on", server.isRegistered(control));
+		server.setAttribute(control, new Attribute("Enabled", true));
+		assertTrue("Turned on over JMX", Metrics.isEnabled());
+	}
+
+	@Test
+	public void test_metrics_readableOverJmx() throws Exception {
+		Metrics.setEnabled(true);
+		new Factory(338, 1).createRandomPollList(5);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName addPoll = new ObjectName("polltracker:type=Operation,name=PollList.addPoll");
+		assertEquals(5L, server.getAttribute(addPoll, "Count"));
+		assertTrue((Double) server.getAttribute(addPoll, "P99Micros") > 0);
+
+		ObjectName control = new ObjectName("polltracker:type=Metrics");
+		assertEquals(Boolean.TRUE, server.getAttribute(control, "Enabled"));
+		server.invoke(control, "reset", null, null);
+		assertEquals(0L, server.getAttribute(addPoll, "Count"));
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Counts the calls of one operation and how long they took. A call is timed by taking Metrics.start() when it
+ * begins and passing it to record when it ends:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.POLL_ADD_PARTY.record(start);
+ * </pre>
+ * While metrics are turned off, start gives Metrics.NOT_TIMED without reading the clock and record returns at
+ * once, so an instrumented method only pays for reading one flag.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+	private static final double NANOS_PER_MICRO = 1000;
+
+	//Instance variables
+	private final String name;
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	//Time metrics were on since the last reset, up to when they were last turned off. Only used while holding
+	//the lock on this object, like clockStart
+	private long timedNanos;
+	//When metrics were last turned on, or Metrics.NOT_TIMED while they are off
+	private long clockStart = Metrics.NOT_TIMED;
+
+	/**
+	 * Creates the metrics of an operation, with nothing counted.
+	 * @param name Name of the operation, such as PollList.addPoll
+	 */
+	public OperationMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Counts a call that began at the given time.
+	 * @param start What Metrics.start() gave when the call began
+	 */
+	public void record(long start) {
+		if (start != Metrics.NOT_TIMED) {
+			latencies.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Gives the histogram of the latencies in nanoseconds, for percentiles not offered here.
+	 * @return The histogram, which changes as more calls are timed
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCount() {
+		return latencies.getCount();
+	}
+
+	@Override
+	public synchronized double getThroughputPerSecond() {
+		long nanos = timedNanos;
+		if (clockStart != Metrics.NOT_TIMED) {
+			nanos += System.nanoTime() - clockStart;
+		}
+		double seconds = nanos / 1e9;
+		return (seconds > 0) ? latencies.getCount() / seconds : 0;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		return latencies.getMean() / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return latencies.getPercentile(50) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return latencies.getPercentile(99) / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return latencies.getMax() / NANOS_PER_MICRO;
+	}
+
+	@Override
+	public synchronized void reset() {
+		latencies.reset();
+		timedNanos = 0;
+		if (clockStart != Metrics.NOT_TIMED) {
+			clockStart = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Starts counting the time metrics are on, for the throughput. Called by Metrics when they are turned on.
+	 * @param now The current System.nanoTime()
+	 */
+	synchronized void startClock(long now) {
+		if (clockStart == Metrics.NOT_TIMED) {
+			clockStart = now;
+		}
+	}
+
+	/**
+	 * Stops counting the time metrics are on, keeping the time counted so far. Called by Metrics when they are
+	 * turned off.
+	 * @param now The current System.nanoTime()
+	 */
+	synchronized void stopClock(long now) {
+		if (clockStart != Metrics.NOT_TIMED) {
+			timedNanos += now - clockStart;
+			clockStart = Metrics.NOT_TIMED;
+		}
+	}
+}
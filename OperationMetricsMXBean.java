@@ -0,0 +1,40 @@
+/**
+ * What JMX clients such as jconsole see of one instrumented operation. Latencies are in microseconds, and
+ * everything is measured since the program started or the metrics were last reset.
+ */
+public interface OperationMetricsMXBean {
+	/**
+	 * Gives the name of the operation, such as PollList.addPoll.
+	 * @return Name of the operation
+	 */
+	String getName();
+
+	/**
+	 * Gives the number of calls timed.
+	 * @return Number of calls
+	 */
+	long getCount();
+
+	/**
+	 * Gives the average number of calls timed per second of the time metrics were on since the last reset.
+	 * @return Calls per second
+	 */
+	double getThroughputPerSecond();
+
+	/**
+	 * Getter methods for the latencies of the calls timed: the average, the median, the 99th percentile and
+	 * the highest, all 0 until a call has been timed.
+	 */
+	double getMeanMicros();
+
+	double getP50Micros();
+
+	double getP99Micros();
+
+	double getMaxMicros();
+
+	/**
+	 * Throws away the counts and latencies so far.
+	 */
+	void reset();
+}
@@ -6,20 +6,42 @@ import java.awt.Color;
  *
  * This class represents a single party containing the name, color, projected number of seats, and the 
  * projected percentage of votes for the party.
+ *
+ * The text from toString and the last visualization line by seats and by votes are kept, so drawing the
+ * same party again with the same stars just gives back the kept text. The setters throw the kept text away.
  */
 public class Party {
 	//Instance variables
 	private String name;
+	//ID of the name in the PartyRegistry, kept up to date by setName
+	private int id;
 	private float projectedNumberOfSeats;
 	private float projectedPercentageOfVotes;
 	private Color partyColour;
+	//Text of toString, or null until it is asked for again after a change
+	private String cachedString;
+	//Last visualization lines by seats and by votes, or null until they are asked for again after a change
+	private RenderedLine renderedBySeats;
+	private RenderedLine renderedByVotes;
+	//The Poll this party was last added to, told when the party is renamed so it can find the party by its new name
+	private Poll owner;
 
 	/**
 	 * Create a party instance with a specific name
 	 * @param name The name of this party instance
 	 */
 	public Party(String name) {
+		this(name, PartyRegistry.idOf(name));
+	}
+
+	/**
+	 * Create a party instance with a name whose PartyRegistry ID has already been looked up.
+	 * @param name The name of this party instance
+	 * @param id The ID of the name in the PartyRegistry
+	 */
+	Party(String name, int id) {
 		this.name = name;
+		this.id = id;
 	}
 
 	/**
@@ -37,10 +59,51 @@ public class Party {
 	}
 
 	/**
-	 * Set the name of this party instance
+	 * Creates a copy of this party with the same name, seats, votes and colour. The copy starts with the same
+	 * kept text, which never changes once made.
+	 * @return New Party
+	 */
+	Party copy() {
+		Party copy = new Party(name, id);
+		copy.projectedNumberOfSeats = projectedNumberOfSeats;
+		copy.projectedPercentageOfVotes = projectedPercentageOfVotes;
+		copy.partyColour = partyColour;
+		copy.cachedString = cachedString;
+		copy.renderedBySeats = renderedBySeats;
+		copy.renderedByVotes = renderedByVotes;
+		return copy;
+	}
+
+	/**
+	 * Set the name of this party instance. If the party is in a poll, the poll finds it by its new name from now on.
+	 * A party can't be given the name of another party in the same poll, since a poll has one party of each name.
 	 */
 	public void setName(String name) {
+		int newId = PartyRegistry.idOf(name);
+		if (owner != null && newId != id && owner.getPartyById(newId) != null) {
+			System.out.println("Error: setName was called with an invalid argument: another party in the poll has that name");
+			return;
+		}
+
+		int oldId = id;
 		this.name = name;
+		id = newId;
+		clearRenderedText();
+		if (owner != null && id != oldId) {
+			owner.partyRenamed(this, oldId);
+		}
+	}
+
+	/**
+	 * Getter and setter for the Poll this party is in, set by Poll when the party is added and cleared when it is
+	 * replaced. A party that is in more than one poll only tells the last poll it was added to about changes.
+	 */
+	Poll getOwner() {
+		return owner;
+	}
+
+	void setOwner(Poll owner) {
+		this.owner = owner;
 	}
 
 	/**
@@ -51,6 +114,15 @@ public class Party {
 		return name;
 	}
 
+	/**
+	 * Get the ID of this party's name in the PartyRegistry, which is the same for every party with the
+	 * same name (ignoring case)
+	 * @return The ID, or -1 if the party has no name
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Set the number of seats this party is expected to win
 	 * @param projectedNumberOfSeats The number of seats this party
@@ -68,6 +140,7 @@ public class Party {
 		else {
 			this.projectedNumberOfSeats = projectedNumberOfSeats;
 		}
+		changed();
 	}
 
 	/**
@@ -91,6 +164,7 @@ public class Party {
 		else {
 			this.projectedPercentageOfVotes = projectedPercentageOfVotes;
 		}
+		changed();
 	}
 
 	/**
@@ -107,6 +181,27 @@ public class Party {
 	 */
 	public void setColour(Color partyColour) {
 		this.partyColour = partyColour;
+		changed();
+	}
+
+	/**
+	 * Throws away the kept text after a change to this party's seats, votes or colour, and tells the poll the
+	 * party is in, so the PollList holding that poll can update its running totals.
+	 */
+	private void changed() {
+		clearRenderedText();
+		if (owner != null) {
+			owner.partyChanged(this);
+		}
+	}
+
+	/**
+	 * Throws away the kept toString text and visualization lines after a change to this party.
+	 */
+	private void clearRenderedText() {
+		cachedString = null;
+		renderedBySeats = null;
+		renderedByVotes = null;
 	}
 
 	/**
@@ -147,26 +242,48 @@ public class Party {
 	 * @return string containing the relevant information in the format described above.
 	 */
 	public String toString() {
-		String ans = "name ([colour value], <projected %>% of votes, <projected seats> seats)";
+		String text = cachedString;
+		if (text == null) {
+			StringBuilder ans = new StringBuilder();
+			appendTo(ans, this.name, this.partyColour, this.projectedNumberOfSeats, this.projectedPercentageOfVotes);
+			text = ans.toString();
+			cachedString = text;
+		}
+		return text;
+	}
+
+	/**
+	 * Appends the same text as toString to the end of the given StringBuilder.
+	 * @param out The StringBuilder to append to.
+	 */
+	public void appendTo(StringBuilder out) {
+		out.append(toString());
+	}
 
-		ans = ans.replace("name", this.name);
+	/**
+	 * Appends the toString text of a party with the given values, so that party data that isn't kept
+	 * in Party objects (such as a PollMatrix) can be formatted the same way.
+	 * @param out The StringBuilder to append to.
+	 * @param name The name of the party.
+	 * @param partyColour The colour of the party, or null.
+	 * @param projectedNumberOfSeats The number of seats the party is expected to win.
+	 * @param projectedPercentageOfVotes The percentage of votes (between 0 and 1) the party is expected to win.
+	 */
+	static void appendTo(StringBuilder out, String name, Color partyColour, float projectedNumberOfSeats,
+			float projectedPercentageOfVotes) {
+		out.append(name).append(" (");
 
 		//	What if the color is undefined
-		if (this.partyColour == null) {
-			ans = ans.replace("[colour value], ", "");
-		}
-		
-		else {
-			String red = String.valueOf(this.partyColour.getRed());
-			String blue = String.valueOf(this.partyColour.getBlue());
-			String green = String.valueOf(this.partyColour.getGreen());
-			String color = red + "," + blue + "," + green;
-			ans = ans.replace("colour value", color);
+		if (partyColour != null) {
+			out.append('[')
+				.append(partyColour.getRed()).append(',')
+				.append(partyColour.getBlue()).append(',')
+				.append(partyColour.getGreen())
+				.append("], ");
 		}
 
-		ans = ans.replace("<projected %>", String.valueOf((int)(this.projectedPercentageOfVotes*100)));
-		ans = ans.replace("<projected seats>", String.valueOf(this.projectedNumberOfSeats));
-		return ans;
+		out.append((int)(projectedPercentageOfVotes*100)).append("% of votes, ");
+		out.append(projectedNumberOfSeats).append(" seats)");
 	}
 
 	/**
@@ -177,14 +294,28 @@ public class Party {
 	 * @return int that represents the number of stars won for this party instance.
 	 */
 	public int getStarsWon(double seatsOrVotesPerStar, boolean useSeats) {
+		return getStarsWon(this.projectedNumberOfSeats, this.projectedPercentageOfVotes, seatsOrVotesPerStar, useSeats);
+	}
+
+	/**
+	 * Calculates the number of stars won by a party with the given seats and votes.
+	 * @param projectedNumberOfSeats The number of seats the party is expected to win.
+	 * @param projectedPercentageOfVotes The percentage of votes (between 0 and 1) the party is expected to win.
+	 * @param seatsOrVotesPerStar The number of seats/votes represented by one star.
+	 * @param useSeats Boolean indicating whether to calculate stars won using seats
+	 *                 or votes.
+	 * @return int that represents the number of stars won.
+	 */
+	static int getStarsWon(float projectedNumberOfSeats, float projectedPercentageOfVotes, double seatsOrVotesPerStar,
+			boolean useSeats) {
 		int starsWon;
 		if (useSeats) {
-			double var = (float) (this.projectedNumberOfSeats / seatsOrVotesPerStar);
+			double var = (float) (projectedNumberOfSeats / seatsOrVotesPerStar);
 			starsWon = (int) Math.floor(var);
 		}
 		
 		else {
-			double var = (int)  Math.floor(this.projectedPercentageOfVotes * 100 / seatsOrVotesPerStar);
+			double var = (int)  Math.floor(projectedPercentageOfVotes * 100 / seatsOrVotesPerStar);
 			starsWon = (int) var;
 		}
 
@@ -198,6 +329,16 @@ public class Party {
 	 * @return boolean that is true when the party won the majority or false otherwise
 	 */
 	public boolean wonMajority(int maxStars,  int starsWon) {
+		return hasMajority(maxStars, starsWon);
+	}
+
+	/**
+	 * Checks if a number of stars is a majority of the stars that can be won.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param starsWon The number of stars won.
+	 * @return boolean that is true when starsWon is a majority or false otherwise
+	 */
+	static boolean hasMajority(int maxStars, int starsWon) {
 		int starsRequiredToWin = (maxStars/2);
 		return (starsWon > starsRequiredToWin);
 	}
@@ -224,15 +365,62 @@ public class Party {
 	 *  		stars NOT won by the party.
 	 */
 	public String getVisualization(int maxStars, double valuePerStar, boolean useSeats) {
+		RenderedLine line = useSeats ? renderedBySeats : renderedByVotes;
+		if (line != null && line.maxStars == maxStars && line.valuePerStar == valuePerStar) {
+			return line.text;
+		}
+
+		StringBuilder visualization = new StringBuilder(maxStars + 64);
+		appendVisualization(visualization, new char[maxStars+1], maxStars, valuePerStar, useSeats,
+				this.name, this.partyColour, this.projectedNumberOfSeats, this.projectedPercentageOfVotes);
+		line = new RenderedLine(maxStars, valuePerStar, visualization.toString());
+
+		if (useSeats) {
+			renderedBySeats = line;
+		}
+		else {
+			renderedByVotes = line;
+		}
+		return line.text;
+	}
 
-		char[] formatHelper = new char[maxStars+1];
+	/**
+	 * Appends the same text as getVisualization to the end of the given StringBuilder.
+	 *
+	 * @param out The StringBuilder to append to.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param valuePerStar The number of seats/votes represented by one star.
+	 * @param useSeats A boolean when true ensures the method generates a visualization
+	 *                 using seats, otherwise generates a visualization using votes.
+	 */
+	public void appendVisualization(StringBuilder out, int maxStars, double valuePerStar, boolean useSeats) {
+		out.append(getVisualization(maxStars, valuePerStar, useSeats));
+	}
+
+	/**
+	 * Appends the getVisualization text of a party with the given values, so that party data that isn't kept
+	 * in Party objects (such as a PollMatrix) can be drawn the same way.
+	 *
+	 * @param out The StringBuilder to append to.
+	 * @param formatHelper Buffer for the line of stars, must have room for exactly maxStars+1 characters.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param valuePerStar The number of seats/votes represented by one star.
+	 * @param useSeats A boolean when true ensures the method generates a visualization
+	 *                 using seats, otherwise generates a visualization using votes.
+	 * @param name The name of the party.
+	 * @param partyColour The colour of the party, or null.
+	 * @param projectedNumberOfSeats The number of seats the party is expected to win.
+	 * @param projectedPercentageOfVotes The percentage of votes (between 0 and 1) the party is expected to win.
+	 */
+	static void appendVisualization(StringBuilder out, char[] formatHelper, int maxStars, double valuePerStar,
+			boolean useSeats, String name, Color partyColour, float projectedNumberOfSeats, float projectedPercentageOfVotes) {
 		int starsRequiredToWin = (int) Math.floor(maxStars/2);
 
 		//Helper method getStarsWon is called to get the number of stars won by this party
-		int starsWon = this.getStarsWon(valuePerStar, useSeats);
+		int starsWon = getStarsWon(projectedNumberOfSeats, projectedPercentageOfVotes, valuePerStar, useSeats);
 
-		//Helper method wonMajority is called to check if the party won majority of votes/seats in the election.
-		boolean wonMajority = this.wonMajority(maxStars,
+		//Helper method hasMajority is called to check if the party won majority of votes/seats in the election.
+		boolean wonMajority = hasMajority(maxStars,
 				starsWon);
 
 		boolean tinyMarginOfVictory = (wonMajority && (starsWon-starsRequiredToWin > 1) && !useSeats);
@@ -250,7 +438,8 @@ public class Party {
 		formatHelper[starsWon] = replaceThis;
 		formatHelper[indexForBarPlacement] = '|';
 
-		return String.valueOf(formatHelper) + " " + toString();
+		out.append(formatHelper).append(' ');
+		appendTo(out, name, partyColour, projectedNumberOfSeats, projectedPercentageOfVotes);
 	}
 
 	/**
@@ -294,4 +483,19 @@ public class Party {
 	public String textVisualizationByVotes(int maxStars, double percentOfVotesPerStar) {
 		return getVisualization(maxStars, percentOfVotesPerStar, false);
 	}
+	/**
+	 * A visualization line together with the stars it was drawn with. Its fields never change, so a line can be
+	 * read safely by another thread that draws the same party.
+	 */
+	private static class RenderedLine {
+		private final int maxStars;
+		private final double valuePerStar;
+		private final String text;
+
+		RenderedLine(int maxStars, double valuePerStar, String text) {
+			this.maxStars = maxStars;
+			this.valuePerStar = valuePerStar;
+			this.text = text;
+		}
+	}
 }
\ No newline at end of file
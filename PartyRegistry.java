@@ -0,0 +1,92 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every party name in the election a small int ID, so parties can be matched across polls by comparing
+ * ints and used to index arrays directly, instead of comparing names without regard to case every time.
+ * <p>
+ * Names that differ only in case get the same ID. The first spelling of a name registered is kept as its
+ * canonical name. IDs are given out in order from 0 and are never taken back, so they stay the same for as long
+ * as the program runs and can be shared by every Party, Poll and PollList. Names are looked up in a
+ * ConcurrentHashMap, so any thread can look up and register names at the same time.
+ * <p>
+ * The registry is shared by the whole program and only grows. Every name given to a Party, read by PollImporter
+ * or loaded from a file stays registered until the program ends, even after no party has it, and the running
+ * totals of a PollList have a column for every ID up to the highest in its polls. Reading many files with
+ * different, made up party names in one run therefore keeps using more memory.
+ */
+public final class PartyRegistry {
+	//Maps the lower case name of each party to its ID
+	private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	//Canonical name of each ID, replaced by a bigger copy when full
+	private static volatile String[] names = new String[16];
+	//Number of IDs given out, only changed while holding the lock on the class
+	private static int size;
+
+	private PartyRegistry() {
+	}
+
+	/**
+	 * Gives the ID of a party name, registering the name if it hasn't been seen before.
+	 * @param partyName Name of a party
+	 * @return ID of the name, or -1 for null
+	 */
+	public static int idOf(String partyName) {
+		if (partyName == null) {
+			return -1;
+		}
+
+		String key = Poll.nameKey(partyName);
+		Integer id = ids.get(key);
+		return (id != null) ? id : register(key, partyName);
+	}
+
+	private static synchronized int register(String key, String partyName) {
+		Integer id = ids.get(key);
+		if (id != null) {
+			return id;
+		}
+
+		String[] current = names;
+		if (size == current.length) {
+			current = Arrays.copyOf(current, size * 2);
+		}
+		current[size] = partyName;
+		//The name is stored before the ID is put in the map, so any thread that finds the ID can find the name
+		names = current;
+		ids.put(key, size);
+		return size++;
+	}
+
+	/**
+	 * Gives the ID of a party name without registering it.
+	 * @param partyName Name of a party
+	 * @return ID of the name, or -1 if the name is null or has never been registered
+	 */
+	public static int findId(String partyName) {
+		if (partyName == null) {
+			return -1;
+		}
+
+		Integer id = ids.get(Poll.nameKey(partyName));
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * Gives the canonical name of an ID, the spelling it was first registered with.
+	 * @param partyId ID of a party
+	 * @return The canonical name, or null if the ID was never given out
+	 */
+	public static String getName(int partyId) {
+		String[] current = names;
+		return (partyId < 0 || partyId >= current.length) ? null : current[partyId];
+	}
+
+	/**
+	 * Gives the number of IDs given out so far, which is one more than the highest ID.
+	 * @return Number of registered names
+	 */
+	public static int size() {
+		return ids.size();
+	}
+}
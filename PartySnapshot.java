@@ -0,0 +1,96 @@
+import java.awt.Color;
+
+/**
+ * The data of a Party at one moment, which never changes. Any number of threads can read and draw a
+ * PartySnapshot without locking, while the Party it was taken from keeps changing.
+ */
+public final class PartySnapshot {
+	private final String name;
+	private final int id;
+	private final float projectedNumberOfSeats;
+	private final float projectedPercentageOfVotes;
+	private final Color partyColour;
+	//Text of toString, worked out the first time it is asked for
+	private String cachedString;
+
+	/**
+	 * Takes a snapshot of a party.
+	 * @param party The party to copy
+	 */
+	public PartySnapshot(Party party) {
+		this(party.getName(), party.getId(), party.getProjectedNumberOfSeats(), party.getProjectedPercentageOfVotes(),
+				party.getColour());
+	}
+
+	PartySnapshot(String name, int id, float projectedNumberOfSeats, float projectedPercentageOfVotes, Color partyColour) {
+		this.name = name;
+		this.id = id;
+		this.projectedNumberOfSeats = projectedNumberOfSeats;
+		this.projectedPercentageOfVotes = projectedPercentageOfVotes;
+		this.partyColour = partyColour;
+	}
+
+	/**
+	 * Getter methods for the name, PartyRegistry ID, seats, votes and colour of the party.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public float getProjectedNumberOfSeats() {
+		return projectedNumberOfSeats;
+	}
+
+	public float getProjectedPercentageOfVotes() {
+		return projectedPercentageOfVotes;
+	}
+
+	public Color getColour() {
+		return partyColour;
+	}
+
+	/**
+	 * Creates a new Party with the same data, which can be changed without affecting this snapshot.
+	 * @return New Party
+	 */
+	public Party toParty() {
+		Party party = new Party(name, id);
+		party.setProjectedNumberOfSeats(projectedNumberOfSeats);
+		party.setProjectedPercentageOfVotes(projectedPercentageOfVotes);
+		party.setColour(partyColour);
+		return party;
+	}
+
+	/**
+	 * Gives the same text as Party.toString.
+	 * @return Name, colour, percentage of votes and seats of the party
+	 */
+	public String toString() {
+		String text = cachedString;
+		if (text == null) {
+			StringBuilder ans = new StringBuilder();
+			Party.appendTo(ans, name, partyColour, projectedNumberOfSeats, projectedPercentageOfVotes);
+			text = ans.toString();
+			cachedString = text;
+		}
+		return text;
+	}
+
+	/**
+	 * Gives the same text as Party.getVisualization.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param valuePerStar The number of seats/votes represented by one star.
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes.
+	 * @return Line of stars followed by the party's text
+	 */
+	public String getVisualization(int maxStars, double valuePerStar, boolean useSeats) {
+		StringBuilder visualization = new StringBuilder(maxStars + 64);
+		Party.appendVisualization(visualization, new char[maxStars + 1], maxStars, valuePerStar, useSeats, name,
+				partyColour, projectedNumberOfSeats, projectedPercentageOfVotes);
+		return visualization.toString();
+	}
+}
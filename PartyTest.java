@@ -1,6 +1,7 @@
 import static org.junit.Assert.*;
 
 import java.awt.Color;
+import java.util.Locale;
 
 import org.junit.Test;
 
@@ -279,4 +280,148 @@ public class PartyTest {
 		assertEquals(expected, actual);
 	}
 	
+	// Testing kept text
+	@Test
+	public void test_getVisualization_sameArguments_sameText()
+	{
+		Party p = new Party("Kept Text", 100f, 0.3f);
+		String line = p.getVisualization(18, 19, true);
+		assertSame("Drawn once and kept", line, p.getVisualization(18, 19, true));
+		assertNotEquals("Different stars are drawn again", line, p.getVisualization(30, 12, true));
+		assertNotEquals("By votes is kept apart from by seats", line, p.getVisualization(18, 3, false));
+		assertEquals(line, new Party("Kept Text", 100f, 0.3f).getVisualization(18, 19, true));
+	}
+	
+	@Test
+	public void test_getVisualization_afterSetters_drawnAgain()
+	{
+		Party p = new Party("Kept Text", 100f, 0.3f);
+		String seatsLine = p.getVisualization(18, 19, true);
+		String votesLine = p.getVisualization(18, 6, false);
+		String text = p.toString();
+		
+		p.setProjectedNumberOfSeats(200f);
+		assertNotEquals(seatsLine, p.getVisualization(18, 19, true));
+		assertTrue(p.getVisualization(18, 19, true).contains("200.0 seats"));
+		p.setProjectedPercentageOfVotes(0.5f);
+		assertNotEquals(votesLine, p.getVisualization(18, 6, false));
+		assertNotEquals(text, p.toString());
+		
+		String colourless = p.toString();
+		p.setColour(Color.BLUE);
+		assertNotEquals(colourless, p.toString());
+		p.setName("Kept Text Renamed");
+		assertTrue(p.toString().contains("Kept Text Renamed"));
+		assertTrue(p.getVisualization(18, 19, true).contains("Kept Text Renamed"));
+	}
+	
+	@Test
+	public void test_copy_keepsTextUntilChanged()
+	{
+		Party p = new Party("Kept Text", 100f, 0.3f);
+		String line = p.getVisualization(18, 19, true);
+		Party copy = p.copy();
+		assertSame("A copy starts with the kept text", line, copy.getVisualization(18, 19, true));
+		copy.setProjectedNumberOfSeats(50f);
+		assertNotEquals(line, copy.getVisualization(18, 19, true));
+		assertSame("Changing the copy leaves the original's text", line, p.getVisualization(18, 19, true));
+	}
+	
+	// Testing registry IDs
+	@Test
+	public void test_getId_sameNameDifferentCase_sameId()
+	{
+		Party p1 = new Party("Id Test Party");
+		Party p2 = new Party("ID TEST party", 10f, 0.1f);
+		assertEquals("Names differing only in case share an ID", p1.getId(), p2.getId());
+		assertEquals("ID gives back the first spelling registered", "Id Test Party", PartyRegistry.getName(p1.getId()));
+	}
+	
+	@Test
+	public void test_getId_setName_idChanges()
+	{
+		Party p = new Party("Id Test Before");
+		p.setName("Id Test After");
+		assertEquals("Renamed party has the new name's ID", PartyRegistry.findId("id test after"), p.getId());
+		assertNotEquals("Renamed party no longer has the old name's ID", PartyRegistry.findId("Id Test Before"), p.getId());
+	}
+	
+	@Test
+	public void test_getId_turkishLocale_sameIdAnyCase()
+	{
+		Locale before = Locale.getDefault();
+		Locale.setDefault(new Locale("tr", "TR"));
+		try {
+			Party upper = new Party("LIBERAL ID TEST");
+			Party lower = new Party("liberal id test");
+			assertEquals("Names differing in case have the same ID in any locale", upper.getId(), lower.getId());
+		}
+		finally {
+			Locale.setDefault(before);
+		}
+	}
+	
+	@Test
+	public void test_setName_inPoll_foundByNewName()
+	{
+		Party p = new Party("Rename Alpha", 4f, 0.4f);
+		Poll poll = new Poll("Rename Poll", 3);
+		poll.addParty(p);
+		p.setName("Rename Beta");
+		assertSame("Renamed party is found by its new name", p, poll.getParty("rename beta"));
+		assertNull("Renamed party is not found by its old name", poll.getParty("Rename Alpha"));
+		
+		Party replacement = new Party("RENAME BETA", 2f, 0.2f);
+		poll.addParty(replacement);
+		assertEquals("Adding a party with the new name replaces it", 1, poll.getNumberOfParties());
+		assertSame(replacement, poll.getParty("Rename Beta"));
+	}
+	
+	@Test
+	public void test_setName_nameOfOtherPartyInPoll_rejected()
+	{
+		Party first = new Party("Rename Epsilon", 4f, 0.4f);
+		Party second = new Party("Rename Zeta", 2f, 0.2f);
+		Poll poll = new Poll("Rename Clash", 2);
+		poll.addParty(first);
+		poll.addParty(second);
+		PollList list = new PollList(1, 10);
+		list.addPoll(poll);
+		
+		second.setName("RENAME EPSILON");
+		assertEquals("Name is kept", "Rename Zeta", second.getName());
+		assertSame(second, poll.getParty("Rename Zeta"));
+		assertSame(first, poll.getParty("Rename Epsilon"));
+		assertEquals(4, list.getAveragePartyData("Rename Epsilon").getProjectedNumberOfSeats(), 0.0001);
+		assertEquals(2, list.getAveragePartyData("Rename Zeta").getProjectedNumberOfSeats(), 0.0001);
+		
+		second.setName("rename zeta");
+		assertEquals("A new spelling of its own name is allowed", "rename zeta", second.getName());
+		list.recomputeAggregates();
+		assertEquals("Same totals as adding up again", 2, list.getAveragePartyData("Rename Zeta").getProjectedNumberOfSeats(), 0.0001);
+	}
+	
+	@Test
+	public void test_setName_inPollList_totalsFollowName()
+	{
+		Party p = new Party("Rename Gamma", 4f, 0.4f);
+		Poll first = new Poll("Rename First", 2);
+		first.addParty(p);
+		Poll second = new Poll("Rename Second", 2);
+		second.addParty(new Party("Rename Delta", 2f, 0.2f));
+		PollList list = new PollList(2, 10);
+		list.addPoll(first);
+		list.addPoll(second);
+		
+		p.setName("Rename Delta");
+		assertEquals("No poll has the old name", 0, list.getAveragePartyData("Rename Gamma").getProjectedNumberOfSeats(), 0.0001);
+		assertEquals("Both polls have the new name", 3, list.getAveragePartyData("Rename Delta").getProjectedNumberOfSeats(), 0.0001);
+		
+		list.removePoll("Rename Second");
+		assertEquals(0.4f, list.getAveragePartyData("Rename Delta").getProjectedPercentageOfVotes(), 0.0001);
+		list.removePoll("Rename First");
+		assertEquals(0, list.getAveragePartyData("Rename Delta").getProjectedNumberOfSeats(), 0.0001);
+		assertEquals(0, list.getAveragePartyData("Rename Gamma").getProjectedNumberOfSeats(), 0.0001);
+	}
+	
 }
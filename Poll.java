@@ -1,14 +1,30 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
 /**
  * 
  * @author Connor Swartz
  *
  * This class represents a single Poll containing a name and an array consisting of parties.
+ * A poll can also record how many people were sampled and the date its fieldwork was done, which
+ * PollList uses to weight polls by sample size and by how recent they are.
  */
 public class Poll {
 	//Poll class instance variables
 	private String name;
 	private Party[] parties;
 	private int partiesInPoll;
+	//PartyRegistry ID of the party in each slot of the parties array
+	private int[] partyIds;
+	//Open addressing table from party ID to index in the parties array plus one, 0 marks an empty entry
+	private int[] partyTable;
+	//0 when the sample size is not known
+	private int sampleSize;
+	//null when the fieldwork date is not known
+	private LocalDate fieldworkDate;
+	//The PollList this poll was last added to, told about new parties so it can keep its totals up to date
+	private PollList owner;
 	
 	/**
 	 * Constructor for Poll class.
@@ -23,10 +39,12 @@ public class Poll {
 		}
 		
 		parties = new Party[maxParties];
+		partyIds = new int[maxParties];
+		partyTable = new int[Integer.highestOneBit(maxParties * 2 - 1) << 1];
 	}
 	
 	/**
-	 * Getter methods for pollName, parties, and numberOfParties.
+	 * Getter methods for pollName, parties, numberOfParties, sampleSize, and fieldworkDate.
 	 */
 	public String getPollName() {
 		return name;
@@ -39,27 +57,89 @@ public class Poll {
 	public int getNumberOfParties() {
 		return partiesInPoll;
 	}
+
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	public LocalDate getFieldworkDate() {
+		return fieldworkDate;
+	}
+
+	/**
+	 * Sets the number of people sampled by this poll. If the poll is in a PollList, its weighted averages are
+	 * updated.
+	 * @param sampleSize The sample size, or 0 if it is not known. Should not be negative.
+	 */
+	public void setSampleSize(int sampleSize) {
+		if (sampleSize < 0) {
+			System.out.println("Error: setSampleSize was called with an invalid argument: value was less than 0");
+			return;
+		}
+		this.sampleSize = sampleSize;
+		if (owner != null) {
+			owner.pollChanged(this);
+		}
+	}
+
+	/**
+	 * Sets the date the poll's fieldwork was done. If the poll is in a PollList, its decayed averages are updated.
+	 * @param fieldworkDate The date, or null if it is not known.
+	 */
+	public void setFieldworkDate(LocalDate fieldworkDate) {
+		this.fieldworkDate = fieldworkDate;
+		if (owner != null) {
+			owner.pollChanged(this);
+		}
+	}
+
+	/**
+	 * Getter and setter for the PollList this poll is in, set by PollList when the poll is added and cleared
+	 * when it is removed. A poll that is in more than one list only updates the last list it was added to.
+	 */
+	PollList getOwner() {
+		return owner;
+	}
+
+	void setOwner(PollList owner) {
+		this.owner = owner;
+	}
 	
+	/**
+	 * Creates a copy of this poll, with a copy of each of its parties, that is not in any PollList.
+	 * @param maxParties The maximum number of parties the copy can hold, at least the number of parties in this poll.
+	 * @return New Poll
+	 */
+	Poll copy(int maxParties) {
+		Poll copy = new Poll(name, Math.max(maxParties, partiesInPoll));
+		copy.sampleSize = sampleSize;
+		copy.fieldworkDate = fieldworkDate;
+		for (int i = 0; i < partiesInPoll; i++) {
+			copy.addParty(parties[i].copy());
+		}
+		return copy;
+	}
+
 	/**
 	 * Takes no Arguments. Gives String representation of Poll and each party in Poll.
 	 * @return Multiple lines, the first being Poll name, each following line containing the name of a party. 
 	 */
 	public String toString() {
-		String whole = name + "\n";
-		for (Party party : parties) {
-			if (party != null) {
-				whole += party.getName() + "\n";
-			}
+		StringBuilder whole = new StringBuilder().append(name).append('\n');
+		for (int i = 0; i < partiesInPoll; i++) {
+			whole.append(parties[i].getName()).append('\n');
 		}
-		return whole;
+		return whole.toString();
 	}
 	
 	/**
 	 * Adds a new party to the parties array. Party being added should not be null, should not add a party if array is
 	 * full, or if a party with the same name is already in the array, replace it with the new party. Returns nothing.
+	 * If the poll is in a PollList, the list's running totals are updated for the added or replaced party.
 	 * @param toAdd The party you want to add to the parties array.
 	 */
 	public void addParty(Party toAdd) {
+		long start = Metrics.start();
 		if (toAdd == null) {
 			System.out.println("ERROR: Null party cannot be added");
 			return;
@@ -67,29 +147,37 @@ public class Poll {
 		
 		//Check to see if party with same name as party given as argument already in array.
 		//If party with same name in array, replaces it with party given as argument.
-		int index = 0;
-		boolean check = false;
-		while (index < parties.length && parties[index] != null && check == false) {
-			if (parties[index].getName().equalsIgnoreCase(toAdd.getName()) == true) {
-				parties[index] = toAdd;
-				check = true;
+		int id = toAdd.getId();
+		int position = tablePosition(id);
+		int index = partyTable[position] - 1;
+		Party replaced = null;
+		if (index >= 0) {
+			replaced = parties[index];
+			parties[index] = toAdd;
+			if (replaced.getOwner() == this) {
+				replaced.setOwner(null);
 			}
-			
-			index++;
 		}
 		
 		//If party with same name not in array, checks if array is full.
 		//Adds party if array not full, gives error message if full.
-		if (check == false) {
-			if (index < parties.length) {
-				parties[index] = toAdd;
-				partiesInPoll += 1;
-			}
-			
-			else {
-				System.out.println("ERROR: Poll is full");
-			}
+		else if (partiesInPoll < parties.length) {
+			parties[partiesInPoll] = toAdd;
+			partyIds[partiesInPoll] = id;
+			partyTable[position] = partiesInPoll + 1;
+			partiesInPoll += 1;
+		}
+		
+		else {
+			System.out.println("ERROR: Poll is full");
+			return;
 		}
+
+		toAdd.setOwner(this);
+		if (owner != null) {
+			owner.partyAdded(this, (replaced == null) ? -1 : id, toAdd);
+		}
+		Metrics.POLL_ADD_PARTY.record(start);
 	}
 	
 	/**
@@ -98,21 +186,93 @@ public class Poll {
 	 * @return A party with a name equal to the parameter or null if no party with such name exists in parties array. 
 	 */
 	public Party getParty(String toGet) {
-		int toReturn = 0;
-		for (int index = 0; index < parties.length; index++) {
-			if (parties[index] != null && parties[index].getName().equalsIgnoreCase(toGet)) {
-				toReturn = index;
-			}
+		if (toGet == null) {
+			return null;
 		}
 		
-		if (parties[toReturn].getName().equalsIgnoreCase(toGet)) {
-			return parties[toReturn];
+		int id = PartyRegistry.findId(toGet);
+		return (id < 0) ? null : getPartyById(id);
+	}
+	
+	/**
+	 * Finds the party with the given PartyRegistry ID, without comparing any names.
+	 * @param partyId The ID of the party's name.
+	 * @return The party with that ID or null if no party in the parties array has that ID.
+	 */
+	public Party getPartyById(int partyId) {
+		int index = partyTable[tablePosition(partyId)] - 1;
+		return (index < 0) ? null : parties[index];
+	}
+	
+	/**
+	 * Updates the totals of the PollList this poll is in after the seats, votes or colour of one of its parties
+	 * changed. Called by Party's setters.
+	 * @param party The party that changed.
+	 */
+	void partyChanged(Party party) {
+		if (owner == null) {
+			return;
 		}
-		
-		else {
-			return null;
+		for (int i = 0; i < partiesInPoll; i++) {
+			if (parties[i] == party) {
+				owner.partyAdded(this, party.getId(), party);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Finds a party by its new name after it was renamed, and updates the totals of the PollList this poll is in.
+	 * Called by Party.setName.
+	 * @param party The party that was renamed.
+	 * @param oldId The ID of the party's old name.
+	 */
+	void partyRenamed(Party party, int oldId) {
+		int index = 0;
+		while (index < partiesInPoll && parties[index] != party) {
+			index++;
+		}
+		if (index == partiesInPoll) {
+			return;
+		}
+
+		//Renaming is rare, so the table is simply filled in again. Party.setName doesn't allow the name of another
+		//party in this poll, so every ID is still in the poll once
+		partyIds[index] = party.getId();
+		Arrays.fill(partyTable, 0);
+		for (int i = 0; i < partiesInPoll; i++) {
+			partyTable[tablePosition(partyIds[i])] = i + 1;
+		}
+
+		if (owner != null) {
+			owner.partyAdded(this, oldId, party);
 		}
 	}
+
+	/**
+	 * Finds where a party ID is in the party table, probing the entries after its hash in turn.
+	 * @param partyId The ID of a party's name.
+	 * @return The position of the entry for the ID, or of the empty entry where it would go.
+	 */
+	private int tablePosition(int partyId) {
+		int mask = partyTable.length - 1;
+		int position = ((partyId * 0x9E3779B9) >>> 16) & mask;
+		while (partyTable[position] != 0 && partyIds[partyTable[position] - 1] != partyId) {
+			position = (position + 1) & mask;
+		}
+		return position;
+	}
+	
+	/**
+	 * Gives the key a name is stored under in the PartyRegistry and in the poll indexes of PollList, so that names
+	 * differing only in case match. The root locale is used so that a name has the same key on every machine; in
+	 * a Turkish locale, for example, "I" would otherwise become a dotless i.
+	 * @param partyName The name of a party.
+	 * @return The name in lower case.
+	 */
+	static String nameKey(String partyName) {
+		return partyName.toLowerCase(Locale.ROOT);
+	}
 	
 	/**
 	 * Gives visual representation of data in Poll, including name of Poll, maximum number of stars, and the number of
@@ -123,13 +283,11 @@ public class Poll {
 	 * party. 
 	 */
 	public String textVisualizationBySeats(int maxStars, double numOfSeatsPerStar) {
-		String whole = name + "\n";
-		for (Party party : parties) {
-			if (party != null) {
-				whole += party.textVisualizationBySeats(maxStars, numOfSeatsPerStar) + "\n";				
-			}
-		}
-		return whole;
+		long start = Metrics.start();
+		StringBuilder whole = new StringBuilder();
+		appendVisualization(whole, maxStars, numOfSeatsPerStar, true);
+		Metrics.POLL_VISUALIZATION_BY_SEATS.record(start);
+		return whole.toString();
 	}
 		
 	/**
@@ -141,12 +299,25 @@ public class Poll {
 	 * party. 
 	 */
 	public String textVisualizationByVotes(int maxStars, double percentOfVotesPerStar) {
-		String whole = name + "\n";
-		for (Party party : parties) {
-			if (party != null) {
-				whole += party.textVisualizationByVotes(maxStars, percentOfVotesPerStar) + "\n";
-			}
+		long start = Metrics.start();
+		StringBuilder whole = new StringBuilder();
+		appendVisualization(whole, maxStars, percentOfVotesPerStar, false);
+		Metrics.POLL_VISUALIZATION_BY_VOTES.record(start);
+		return whole.toString();
+	}
+	
+	/**
+	 * Appends the same text as textVisualizationBySeats or textVisualizationByVotes to the end of the given StringBuilder.
+	 * @param out The StringBuilder to append to.
+	 * @param maxStars The maximum number of stars that should be displayed on a single line.
+	 * @param valuePerStar The number of seats or percentage of votes represented by a single star.
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes.
+	 */
+	public void appendVisualization(StringBuilder out, int maxStars, double valuePerStar, boolean useSeats) {
+		out.append(name).append('\n');
+		for (int i = 0; i < partiesInPoll; i++) {
+			parties[i].appendVisualization(out, maxStars, valuePerStar, useSeats);
+			out.append('\n');
 		}
-		return whole;
 	}
 }
\ No newline at end of file
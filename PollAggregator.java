@@ -0,0 +1,719 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Adds up the projected seats and votes of a set of parties over many polls, so that the average
+ * party data for every party can be found with a single pass over the polls.
+ * <p>
+ * Each party is given a column, and the sums and counts for that column are kept in primitive arrays. Columns are
+ * found from the party's PartyRegistry ID through an array indexed by ID, so adding a party compares no names.
+ * The sum of the squares of the votes is kept as well, so the spread of a party's votes between polls can be found.
+ * <p>
+ * Two weighted sets of sums are kept next to the plain ones: one weighting each poll by its sample size, and one
+ * weighting each poll by how recent its fieldwork date is, halving the weight for every half-life it is older than
+ * the newest poll. The recency weights are measured from the newest fieldwork date seen so far. When a newer poll
+ * is added, the recency sums are scaled down once for the days that have passed, so adding a poll stays O(parties).
+ * Party names are matched without regard to case, the same way Poll.getParty matches them. An aggregator
+ * created without party names gives a new column to every party it sees, which lets PollList keep running totals
+ * for all of its polls.
+ * <p>
+ * A poll that may be taken away again is added with addRecordedPoll, which keeps a Contribution recording what the
+ * poll added. Taking the poll away subtracts that record rather than the poll's data now, so the sums stay exact
+ * when a poll's parties are changed while it is added.
+ */
+class PollAggregator {
+	//Half-life in days of the recency weights unless another one is set
+	static final double DEFAULT_DECAY_HALF_LIFE = 30;
+	//Number of polls above which lists add up their polls in parallel unless another number is set
+	static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+	//Instance variables
+	private String[] partyNames;
+	private boolean addColumns;
+	//Column of each party ID plus one, 0 for IDs without a column, and the party ID of each column
+	private int[] columnById;
+	private int[] columnIds;
+	private int numOfColumns;
+	private double[] seatSums;
+	private double[] voteSums;
+	private double[] voteSquareSums;
+	private int[] counts;
+
+	private WeightedSums bySampleSize;
+	private WeightedSums byRecency;
+	//How much the recency weight shrinks per day, and the day the recency weights are measured from
+	private double decayPerDay = Math.log(2) / DEFAULT_DECAY_HALF_LIFE;
+	private long newestDay = Long.MIN_VALUE;
+	//True while the column arrays are shared with a frozen copy, so they must be copied before adding a column
+	private boolean columnsShared;
+
+	/**
+	 * Creates an aggregator with one column for each distinct party name.
+	 * Parties with other names are ignored.
+	 * @param partyNames The names of the parties to add up.
+	 */
+	PollAggregator(String[] partyNames) {
+		this.partyNames = partyNames;
+		columnById = new int[0];
+		columnIds = new int[partyNames.length];
+		seatSums = new double[partyNames.length];
+		voteSums = new double[partyNames.length];
+		voteSquareSums = new double[partyNames.length];
+		counts = new int[partyNames.length];
+		bySampleSize = new WeightedSums(partyNames.length);
+		byRecency = new WeightedSums(partyNames.length);
+
+		addColumns = true;
+		for (String partyName : partyNames) {
+			columnOf(PartyRegistry.idOf(partyName));
+		}
+		addColumns = false;
+	}
+
+	/**
+	 * Creates an aggregator that adds a column for every party it sees.
+	 */
+	PollAggregator() {
+		this(new String[0]);
+		addColumns = true;
+	}
+
+	/**
+	 * Creates an empty aggregator with the same columns as another one, so the two can be merged.
+	 * @param other The aggregator to copy the columns of.
+	 */
+	private PollAggregator(PollAggregator other) {
+		partyNames = other.partyNames;
+		addColumns = other.addColumns;
+		columnById = other.columnById.clone();
+		columnIds = other.columnIds.clone();
+		numOfColumns = other.numOfColumns;
+		seatSums = new double[other.seatSums.length];
+		voteSums = new double[other.voteSums.length];
+		voteSquareSums = new double[other.voteSquareSums.length];
+		counts = new int[other.counts.length];
+		bySampleSize = new WeightedSums(other.counts.length);
+		byRecency = new WeightedSums(other.counts.length);
+		decayPerDay = other.decayPerDay;
+	}
+
+	/**
+	 * Creates a frozen copy of another aggregator's sums that shares its columns, see frozenCopy.
+	 * @param other The aggregator to copy.
+	 * @param frozen Must be true, tells this constructor apart from the one that copies only the columns.
+	 */
+	private PollAggregator(PollAggregator other, boolean frozen) {
+		partyNames = other.partyNames;
+		addColumns = false;
+		columnById = other.columnById;
+		columnIds = other.columnIds;
+		numOfColumns = other.numOfColumns;
+		seatSums = other.seatSums.clone();
+		voteSums = other.voteSums.clone();
+		voteSquareSums = other.voteSquareSums.clone();
+		counts = other.counts.clone();
+		bySampleSize = new WeightedSums(other.bySampleSize);
+		byRecency = new WeightedSums(other.byRecency);
+		decayPerDay = other.decayPerDay;
+		newestDay = other.newestDay;
+	}
+
+	/**
+	 * Creates a copy of the sums as they are now, which is never changed, so it can be read by other threads once
+	 * it has been safely published. Only the sums are copied: the column arrays are shared with the copy until
+	 * this aggregator adds a new column, so freezing costs O(columns) and not O(party IDs) each time.
+	 * @return The frozen copy.
+	 */
+	PollAggregator frozenCopy() {
+		columnsShared = true;
+		return new PollAggregator(this, true);
+	}
+
+	/**
+	 * Sets the half-life of the recency weights. Must be called before any poll is added.
+	 * @param days The number of days it takes for a poll's weight to halve, greater than 0.
+	 */
+	void setDecayHalfLife(double days) {
+		decayPerDay = Math.log(2) / days;
+	}
+
+	/**
+	 * Finds the column for a party without adding one.
+	 * @param partyId The PartyRegistry ID of the party.
+	 * @return The column, or -1 if the party has no column.
+	 */
+	private int existingColumn(int partyId) {
+		return (partyId < 0 || partyId >= columnById.length) ? -1 : columnById[partyId] - 1;
+	}
+
+	/**
+	 * Finds the column for a party, adding one if this aggregator adds columns.
+	 * @param partyId The PartyRegistry ID of the party.
+	 * @return The column, or -1 if the party has no column.
+	 */
+	private int columnOf(int partyId) {
+		int column = existingColumn(partyId);
+		if (column >= 0 || partyId < 0 || !addColumns) {
+			return column;
+		}
+
+		if (columnsShared) {
+			columnById = columnById.clone();
+			columnIds = columnIds.clone();
+			columnsShared = false;
+		}
+
+		if (partyId >= columnById.length) {
+			columnById = Arrays.copyOf(columnById, Math.max(partyId + 1, columnById.length * 2));
+		}
+
+		int newColumn = numOfColumns;
+		if (newColumn == counts.length) {
+			int capacity = Math.max(8, counts.length * 2);
+			columnIds = Arrays.copyOf(columnIds, capacity);
+			seatSums = Arrays.copyOf(seatSums, capacity);
+			voteSums = Arrays.copyOf(voteSums, capacity);
+			voteSquareSums = Arrays.copyOf(voteSquareSums, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			bySampleSize.grow(capacity);
+			byRecency.grow(capacity);
+		}
+
+		columnById[partyId] = newColumn + 1;
+		columnIds[newColumn] = partyId;
+		numOfColumns++;
+		return newColumn;
+	}
+
+	/**
+	 * Adds the seats and votes of each party in the poll to the sums of the party's column. Nothing is kept
+	 * to take the poll away again, use addRecordedPoll for polls that may be taken away.
+	 * @param poll The poll to add.
+	 */
+	void addPoll(Poll poll) {
+		Party[] parties = poll.getParties();
+		int numberOfParties = poll.getNumberOfParties();
+		int sampleSize = poll.getSampleSize();
+		double recencyWeight = recencyWeight(poll.getFieldworkDate(), true);
+
+		for (int i = 0; i < numberOfParties; i++) {
+			Party party = parties[i];
+			addPartyContribution(party.getId(), party.getProjectedNumberOfSeats(), party.getProjectedPercentageOfVotes(),
+					sampleSize, recencyWeight, 1);
+		}
+	}
+
+	/**
+	 * Adds the poll like addPoll, and gives back a record of what was added, so it can be taken away again.
+	 * @param poll The poll to add.
+	 * @return What the poll added to the sums.
+	 */
+	Contribution addRecordedPoll(Poll poll) {
+		Contribution contribution = new Contribution(poll);
+		addContribution(contribution, 1);
+		return contribution;
+	}
+
+	/**
+	 * Takes away what a poll added to the sums. What was recorded when it was added is taken away, not the
+	 * poll's data now, so the sums stay exact even if its parties, sample size or date were changed since.
+	 * @param contribution What addRecordedPoll gave back when the poll was added.
+	 */
+	void removeContribution(Contribution contribution) {
+		addContribution(contribution, -1);
+	}
+
+	/**
+	 * Adds or takes away a recorded contribution.
+	 * @param contribution The contribution.
+	 * @param sign 1 to add it, -1 to take it away.
+	 */
+	private void addContribution(Contribution contribution, int sign) {
+		double recencyWeight = recencyWeight(contribution.fieldworkDate, sign > 0);
+		for (int i = 0; i < contribution.numOfParties; i++) {
+			addPartyContribution(contribution.partyIds[i], contribution.seats[i], contribution.votes[i],
+					contribution.sampleSize, recencyWeight, sign);
+		}
+	}
+
+	/**
+	 * Updates the sums and the record of a poll already in this aggregator when one of its parties is added,
+	 * replaced or renamed. What was recorded for the party's old ID and for its new ID is taken away, and the
+	 * party's data now is added and recorded.
+	 * @param contribution The record of the poll.
+	 * @param replacedId ID the party was recorded under before, or -1 if it is new to the poll.
+	 * @param added The party as it is now.
+	 */
+	void replaceParty(Contribution contribution, int replacedId, Party added) {
+		double recencyWeight = recencyWeight(contribution.fieldworkDate, true);
+		int sampleSize = contribution.sampleSize;
+		int addedId = added.getId();
+		int index = contribution.indexOf(replacedId);
+		if (index >= 0 && replacedId != addedId) {
+			addPartyContribution(replacedId, contribution.seats[index], contribution.votes[index], sampleSize, recencyWeight, -1);
+			contribution.removeAt(index);
+		}
+
+		index = contribution.indexOf(addedId);
+		if (index >= 0) {
+			addPartyContribution(addedId, contribution.seats[index], contribution.votes[index], sampleSize, recencyWeight, -1);
+		}
+		else {
+			index = contribution.append(addedId);
+		}
+		contribution.seats[index] = added.getProjectedNumberOfSeats();
+		contribution.votes[index] = added.getProjectedPercentageOfVotes();
+		addPartyContribution(addedId, contribution.seats[index], contribution.votes[index], sampleSize, recencyWeight, 1);
+	}
+
+	/**
+	 * Adds or takes away one party's seats and votes in the sums of its column.
+	 * @param partyId The party's ID.
+	 * @param seats The party's projected seats.
+	 * @param votes The party's projected percentage of votes.
+	 * @param sampleSize Sample size of the party's poll.
+	 * @param recencyWeight Recency weight of the party's poll.
+	 * @param sign 1 to add the party, -1 to take it away.
+	 */
+	private void addPartyContribution(int partyId, double seats, double votes, int sampleSize, double recencyWeight, int sign) {
+		int column = columnOf(partyId);
+		if (column < 0) {
+			return;
+		}
+
+		seatSums[column] += sign * seats;
+		voteSums[column] += sign * votes;
+		voteSquareSums[column] += sign * votes * votes;
+		counts[column] += sign;
+		bySampleSize.add(column, sampleSize, seats, votes, sign);
+		byRecency.add(column, recencyWeight, seats, votes, sign);
+
+		//Clear any rounding left over once no poll has this party
+		if (counts[column] == 0) {
+			seatSums[column] = 0;
+			voteSums[column] = 0;
+			voteSquareSums[column] = 0;
+		}
+	}
+
+	/**
+	 * Gives the recency weight of a poll with the given fieldwork date. When a poll newer than any seen so far is
+	 * being added, the recency sums are first scaled down so they are measured from the new poll's date.
+	 * @param date The fieldwork date of the poll, or null if it is not known.
+	 * @param adding True if the poll is being added, false if it is being taken away.
+	 * @return The weight, above 0 and at most 1, or 0 for a poll without a date.
+	 */
+	private double recencyWeight(LocalDate date, boolean adding) {
+		if (date == null) {
+			return 0;
+		}
+
+		long day = date.toEpochDay();
+		if (adding && day > newestDay) {
+			moveNewestDay(day);
+		}
+		//A very old poll keeps the smallest weight rather than none, so taking it away matches adding it
+		return Math.max(Double.MIN_VALUE, Math.exp(-decayPerDay * (newestDay - day)));
+	}
+
+	/**
+	 * Measures the recency weights from a later day, scaling the recency sums down for the days in between.
+	 * @param day The new day to measure from, after the current one.
+	 */
+	private void moveNewestDay(long day) {
+		if (newestDay != Long.MIN_VALUE) {
+			byRecency.scale(Math.exp(-decayPerDay * (day - newestDay)), numOfColumns);
+		}
+		newestDay = day;
+	}
+
+	/**
+	 * Adds every poll in the given range of the array, skipping null slots.
+	 * @param polls Array of polls.
+	 * @param from Index of the first poll to add.
+	 * @param to Index after the last poll to add.
+	 * @param records Array the record of each poll is put in, at the same index as the poll, or null to keep no records.
+	 */
+	void addPolls(Poll[] polls, int from, int to, Contribution[] records) {
+		for (int i = from; i < to; i++) {
+			if (polls[i] == null) {
+				continue;
+			}
+
+			if (records == null) {
+				addPoll(polls[i]);
+			}
+			else {
+				records[i] = addRecordedPoll(polls[i]);
+			}
+		}
+	}
+
+	/**
+	 * Adds every poll in the given range of the array. Ranges longer than the threshold are split in half and
+	 * added up on the common ForkJoinPool, and the partial sums are merged together afterwards.
+	 * @param polls Array of polls.
+	 * @param from Index of the first poll to add.
+	 * @param to Index after the last poll to add.
+	 * @param threshold The longest range that is added up without being split.
+	 * @param records Array the record of each poll is put in, at the same index as the poll, or null to keep no records.
+	 */
+	void addPollsInParallel(Poll[] polls, int from, int to, int threshold, Contribution[] records) {
+		if (to - from <= threshold) {
+			addPolls(polls, from, to, records);
+		}
+
+		else {
+			merge(ForkJoinPool.commonPool().invoke(new PartialSum(this, polls, from, to, threshold, records)));
+		}
+	}
+
+	/**
+	 * Adds the sums and counts of another aggregator created from this one. Columns the other
+	 * aggregator added are matched to this one's columns by party ID.
+	 * @param other Aggregator created from this one.
+	 */
+	private void merge(PollAggregator other) {
+		if (other.newestDay > newestDay) {
+			moveNewestDay(other.newestDay);
+		}
+		double recencyScale = (other.newestDay == Long.MIN_VALUE) ? 0 : Math.exp(-decayPerDay * (newestDay - other.newestDay));
+
+		for (int otherColumn = 0; otherColumn < other.numOfColumns; otherColumn++) {
+			int column = columnOf(other.columnIds[otherColumn]);
+			if (column >= 0) {
+				seatSums[column] += other.seatSums[otherColumn];
+				voteSums[column] += other.voteSums[otherColumn];
+				voteSquareSums[column] += other.voteSquareSums[otherColumn];
+				counts[column] += other.counts[otherColumn];
+				bySampleSize.addFrom(other.bySampleSize, otherColumn, column, 1);
+				byRecency.addFrom(other.byRecency, otherColumn, column, recencyScale);
+			}
+		}
+	}
+
+	/**
+	 * Fork-join task that adds up one range of polls into its own aggregator.
+	 */
+	private static class PartialSum extends RecursiveTask<PollAggregator> {
+		private static final long serialVersionUID = 1L;
+
+		private PollAggregator template;
+		private Poll[] polls;
+		private int from;
+		private int to;
+		private int threshold;
+		private Contribution[] records;
+
+		PartialSum(PollAggregator template, Poll[] polls, int from, int to, int threshold, Contribution[] records) {
+			this.template = template;
+			this.polls = polls;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+			this.records = records;
+		}
+
+		@Override
+		protected PollAggregator compute() {
+			if (to - from <= threshold) {
+				PollAggregator partial = new PollAggregator(template);
+				partial.addPolls(polls, from, to, records);
+				return partial;
+			}
+
+			int middle = (from + to) >>> 1;
+			PartialSum left = new PartialSum(template, polls, from, middle, threshold, records);
+			left.fork();
+			PollAggregator right = new PartialSum(template, polls, middle, to, threshold, records).compute();
+			PollAggregator partial = left.join();
+			partial.merge(right);
+			return partial;
+		}
+	}
+
+	/**
+	 * Creates a party holding the average seats and votes of the named party over all polls added.
+	 * The averages are only set when at least one poll contained the party, like PollList.getAveragePartyData.
+	 * @param partyName Name of a party.
+	 * @return New Party with the average data.
+	 */
+	Party getAverageParty(String partyName) {
+		Party average = new Party(partyName);
+		setAverage(average, existingColumn(average.getId()));
+		return average;
+	}
+
+	/**
+	 * Creates a party holding the average seats and votes of a party over all polls added, named with the
+	 * canonical name of its ID.
+	 * @param partyId PartyRegistry ID of a party.
+	 * @return New Party with the average data.
+	 */
+	Party getAverageParty(int partyId) {
+		Party average = new Party(PartyRegistry.getName(partyId), partyId);
+		setAverage(average, existingColumn(partyId));
+		return average;
+	}
+
+	/**
+	 * Sets the averages of one column in a party, when at least one poll contained the party.
+	 * @param average The party to set.
+	 * @param column The column, or -1 for a party without one.
+	 */
+	private void setAverage(Party average, int column) {
+		if (column >= 0 && counts[column] > 0) {
+			//Taking polls away can leave a sum of zeros a rounding error below 0
+			average.setProjectedPercentageOfVotes((float) Math.max(0, voteSums[column] / counts[column]));
+			average.setProjectedNumberOfSeats((float) Math.max(0, seatSums[column] / counts[column]));
+		}
+	}
+
+	/**
+	 * Creates a party holding the average seats and votes of the named party weighted by the sample size of each
+	 * poll. Polls without a sample size are left out.
+	 * @param partyName Name of a party.
+	 * @return New Party with the weighted average data.
+	 */
+	Party getWeightedAverageParty(String partyName) {
+		return averageOf(partyName, bySampleSize);
+	}
+
+	/**
+	 * Creates a party holding the average seats and votes of the named party weighted by how recent each poll is.
+	 * Polls without a fieldwork date are left out.
+	 * @param partyName Name of a party.
+	 * @return New Party with the decayed average data.
+	 */
+	Party getDecayedAverageParty(String partyName) {
+		return averageOf(partyName, byRecency);
+	}
+
+	/**
+	 * Creates a party holding the averages of the named party in one set of weighted sums. The averages are
+	 * only set when at least one poll with a weight contained the party.
+	 * @param partyName Name of a party.
+	 * @param sums The weighted sums to average.
+	 * @return New Party with the average data.
+	 */
+	private Party averageOf(String partyName, WeightedSums sums) {
+		Party average = new Party(partyName);
+		int column = existingColumn(average.getId());
+
+		if (column >= 0 && sums.counts[column] > 0 && sums.weights[column] > 0) {
+			average.setProjectedPercentageOfVotes((float) (sums.voteSums[column] / sums.weights[column]));
+			average.setProjectedNumberOfSeats((float) (sums.seatSums[column] / sums.weights[column]));
+		}
+
+		return average;
+	}
+
+	/**
+	 * Gives the sample variance of the named party's percentage of votes over the polls that contained it.
+	 * @param partyName Name of a party.
+	 * @return The variance, or 0 if fewer than two polls contained the party.
+	 */
+	double getVoteVariance(String partyName) {
+		int column = existingColumn(PartyRegistry.findId(partyName));
+		if (column < 0 || counts[column] < 2) {
+			return 0;
+		}
+
+		int count = counts[column];
+		double mean = voteSums[column] / count;
+		//Rounding in the running sums can leave a tiny negative number when every poll agrees
+		return Math.max(0, (voteSquareSums[column] - mean * voteSums[column]) / (count - 1));
+	}
+
+	/**
+	 * Creates a poll containing the average party data of each party name given to the constructor, in the same order.
+	 * @param pollName Name for the new poll.
+	 * @return New Poll with the average data.
+	 */
+	Poll toPoll(String pollName) {
+		return toPoll(pollName, partyNames);
+	}
+
+	/**
+	 * Creates a poll containing the average party data of each of the given parties, in the same order.
+	 * @param pollName Name for the new poll.
+	 * @param partyNames Names of the parties to put in the poll.
+	 * @return New Poll with the average data.
+	 */
+	Poll toPoll(String pollName, String[] partyNames) {
+		Poll aggregate = new Poll(pollName, partyNames.length);
+		for (String partyName : partyNames) {
+			aggregate.addParty(getAverageParty(partyName));
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Creates a poll containing the sample size weighted average party data of each of the given parties.
+	 * @param pollName Name for the new poll.
+	 * @param partyNames Names of the parties to put in the poll.
+	 * @return New Poll with the weighted average data.
+	 */
+	Poll toWeightedPoll(String pollName, String[] partyNames) {
+		Poll aggregate = new Poll(pollName, partyNames.length);
+		for (String partyName : partyNames) {
+			aggregate.addParty(getWeightedAverageParty(partyName));
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Creates a poll containing the recency weighted average party data of each of the given parties.
+	 * @param pollName Name for the new poll.
+	 * @param partyNames Names of the parties to put in the poll.
+	 * @return New Poll with the decayed average data.
+	 */
+	Poll toDecayedPoll(String pollName, String[] partyNames) {
+		Poll aggregate = new Poll(pollName, partyNames.length);
+		for (String partyName : partyNames) {
+			aggregate.addParty(getDecayedAverageParty(partyName));
+		}
+		return aggregate;
+	}
+
+	/**
+	 * What one poll added to the sums: the ID, seats and votes of each of its parties, its sample size and its
+	 * fieldwork date, as they were when it was added. Each task of a parallel sum writes the records of its own
+	 * range of polls only.
+	 */
+	static final class Contribution {
+		private int[] partyIds;
+		private float[] seats;
+		private float[] votes;
+		private int numOfParties;
+		private final int sampleSize;
+		private final LocalDate fieldworkDate;
+
+		Contribution(Poll poll) {
+			Party[] parties = poll.getParties();
+			numOfParties = poll.getNumberOfParties();
+			partyIds = new int[numOfParties];
+			seats = new float[numOfParties];
+			votes = new float[numOfParties];
+			for (int i = 0; i < numOfParties; i++) {
+				partyIds[i] = parties[i].getId();
+				seats[i] = parties[i].getProjectedNumberOfSeats();
+				votes[i] = parties[i].getProjectedPercentageOfVotes();
+			}
+			sampleSize = poll.getSampleSize();
+			fieldworkDate = poll.getFieldworkDate();
+		}
+
+		/**
+		 * Finds where a party ID is recorded, or -1 if it isn't.
+		 */
+		int indexOf(int partyId) {
+			for (int i = 0; i < numOfParties; i++) {
+				if (partyIds[i] == partyId) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds an entry for a party ID, making the arrays bigger when they are full, and gives its index.
+		 */
+		int append(int partyId) {
+			if (numOfParties == partyIds.length) {
+				int capacity = Math.max(4, numOfParties * 2);
+				partyIds = Arrays.copyOf(partyIds, capacity);
+				seats = Arrays.copyOf(seats, capacity);
+				votes = Arrays.copyOf(votes, capacity);
+			}
+			partyIds[numOfParties] = partyId;
+			return numOfParties++;
+		}
+
+		/**
+		 * Removes an entry by moving the last entry into its place.
+		 */
+		void removeAt(int index) {
+			numOfParties--;
+			partyIds[index] = partyIds[numOfParties];
+			seats[index] = seats[numOfParties];
+			votes[index] = votes[numOfParties];
+		}
+	}
+
+	/**
+	 * Weighted sums of seats and votes for each column, along with the total weight and the number of polls
+	 * with a weight above 0 that were added to each column.
+	 */
+	private static class WeightedSums {
+		private double[] seatSums;
+		private double[] voteSums;
+		private double[] weights;
+		private int[] counts;
+
+		WeightedSums(int capacity) {
+			seatSums = new double[capacity];
+			voteSums = new double[capacity];
+			weights = new double[capacity];
+			counts = new int[capacity];
+		}
+
+		WeightedSums(WeightedSums other) {
+			seatSums = other.seatSums.clone();
+			voteSums = other.voteSums.clone();
+			weights = other.weights.clone();
+			counts = other.counts.clone();
+		}
+
+		void grow(int capacity) {
+			seatSums = Arrays.copyOf(seatSums, capacity);
+			voteSums = Arrays.copyOf(voteSums, capacity);
+			weights = Arrays.copyOf(weights, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+		}
+
+		/**
+		 * Adds or takes away one party's data with the given weight. Data with no weight is ignored.
+		 */
+		void add(int column, double weight, double seats, double votes, int sign) {
+			if (weight <= 0) {
+				return;
+			}
+
+			seatSums[column] += sign * weight * seats;
+			voteSums[column] += sign * weight * votes;
+			weights[column] += sign * weight;
+			counts[column] += sign;
+
+			//Clear any rounding left over once no weighted poll has this party
+			if (counts[column] == 0) {
+				seatSums[column] = 0;
+				voteSums[column] = 0;
+				weights[column] = 0;
+			}
+		}
+
+		/**
+		 * Multiplies the sums and weights of the first columns by a factor.
+		 */
+		void scale(double factor, int numOfColumns) {
+			for (int column = 0; column < numOfColumns; column++) {
+				seatSums[column] *= factor;
+				voteSums[column] *= factor;
+				weights[column] *= factor;
+			}
+		}
+
+		/**
+		 * Adds one column of other sums, multiplied by a factor, to a column of these sums.
+		 */
+		void addFrom(WeightedSums other, int otherColumn, int column, double factor) {
+			seatSums[column] += factor * other.seatSums[otherColumn];
+			voteSums[column] += factor * other.voteSums[otherColumn];
+			weights[column] += factor * other.weights[otherColumn];
+			counts[column] += other.counts[otherColumn];
+		}
+	}
+}
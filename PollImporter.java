@@ -0,0 +1,440 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Reads polls in bulk from a delimited text file with one party per row:
+ * <pre>
+ * poll name, party name, projected seats, projected percentage of votes (0 to 100)
+ * </pre>
+ * The file is read through a FileChannel into a byte buffer, and the rows are split and the numbers parsed
+ * straight from the bytes. Rows for the same poll don't have to be next to each other; polls are added to the
+ * PollList in the order they first appear. Poll and party names that differ only in case are the same, as they
+ * are in PollList and Poll, and a poll takes the spelling of its first row. A first row whose numbers can't be
+ * read is taken to be a header. Blank lines are skipped. Rows with the wrong number of fields, numbers that
+ * can't be read, negative seats, a percentage outside 0 to 100 or a party already given for the same poll are
+ * rejected and counted.
+ * <p>
+ * After each import the number of rows read and rejected and the rows read per second can be looked up.
+ */
+public class PollImporter {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final double[] POWERS_OF_TEN = new double[19];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+		}
+	}
+
+	//Instance variables
+	private byte delimiter;
+	private long rowsRead;
+	private long rowsRejected;
+	private long elapsedNanos;
+
+	//Fields of the row being parsed, as start and end positions in the buffer
+	private int[] fieldStarts = new int[4];
+	private int[] fieldEnds = new int[4];
+	//Set by parseNumber when the field isn't a number
+	private boolean badNumber;
+
+	/**
+	 * Creates an importer for files whose fields are separated by the given character.
+	 * @param delimiter The field separator, such as ',' or '\t'. Must be an ASCII character.
+	 */
+	public PollImporter(char delimiter) {
+		this.delimiter = (byte) delimiter;
+	}
+
+	/**
+	 * Creates an importer for a file, using tabs for .tsv and .tab files and commas for anything else.
+	 * @param file The file to import
+	 * @return New PollImporter
+	 */
+	public static PollImporter forFile(Path file) {
+		String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+		return new PollImporter((name.endsWith(".tsv") || name.endsWith(".tab")) ? '\t' : ',');
+	}
+
+	/**
+	 * Getter methods for the results of the last import.
+	 */
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getRowsPerSecond() {
+		return (elapsedNanos == 0) ? 0 : rowsRead * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Gives a one line summary of the last import.
+	 * @return Summary with the number of rows read and rejected and the rows read per second
+	 */
+	public String getReport() {
+		return "Read " + rowsRead + " rows (" + rowsRejected + " rejected) in " + (elapsedNanos / 1000000) + " ms, "
+				+ (long) getRowsPerSecond() + " rows/sec";
+	}
+
+	/**
+	 * Reads every row of the file and builds a PollList from it.
+	 * @param file The file to import
+	 * @param numOfSeats Number of seats available in the election
+	 * @return New PollList holding the imported polls
+	 * @throws IOException If the file can't be read
+	 */
+	public PollList importPolls(Path file, int numOfSeats) throws IOException {
+		long start = System.nanoTime();
+		rowsRead = 0;
+		rowsRejected = 0;
+
+		ArrayList<PollRows> polls = new ArrayList<PollRows>();
+		HashMap<String, PollRows> pollsByName = new HashMap<String, PollRows>();
+		PartyNames partyNames = new PartyNames();
+		PollRows lastPoll = null;
+		boolean firstRow = true;
+
+		try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			byte[] bytes = buffer.array();
+			boolean endOfFile = false;
+
+			while (!endOfFile) {
+				endOfFile = in.read(buffer) < 0;
+				int limit = buffer.position();
+				int lineStart = 0;
+
+				while (lineStart < limit) {
+					int lineEnd = indexOf(bytes, (byte) '\n', lineStart, limit);
+					if (lineEnd < 0) {
+						if (!endOfFile) {
+							break;
+						}
+						lineEnd = limit;
+					}
+
+					int contentEnd = (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') ? lineEnd - 1 : lineEnd;
+					if (contentEnd > lineStart && !isBlank(bytes, lineStart, contentEnd)) {
+						PollRows poll = parseRow(bytes, lineStart, contentEnd, firstRow, lastPoll, pollsByName, polls,
+								partyNames);
+						firstRow = false;
+						if (poll != null) {
+							lastPoll = poll;
+						}
+					}
+					lineStart = lineEnd + 1;
+				}
+
+				//Move the part of a line that hasn't been read yet to the front, growing the buffer for long lines
+				if (lineStart >= limit) {
+					buffer.clear();
+				}
+				else {
+					buffer.position(lineStart);
+					buffer.limit(limit);
+					buffer.compact();
+					if (!buffer.hasRemaining()) {
+						ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+						buffer.flip();
+						bigger.put(buffer);
+						buffer = bigger;
+						bytes = buffer.array();
+					}
+				}
+			}
+		}
+
+		Poll[] built = new Poll[polls.size()];
+		for (int i = 0; i < built.length; i++) {
+			built[i] = polls.get(i).toPoll();
+		}
+		PollList list = new PollList(built.length, numOfSeats);
+		list.addPolls(built, built.length);
+
+		elapsedNanos = System.nanoTime() - start;
+		return list;
+	}
+
+	/**
+	 * Reads one non-blank row and adds it to the rows of its poll.
+	 * @return The poll the row was added to, or null if the row was rejected or was the header
+	 */
+	private PollRows parseRow(byte[] bytes, int start, int end, boolean firstRow, PollRows lastPoll,
+			HashMap<String, PollRows> pollsByName, ArrayList<PollRows> polls, PartyNames partyNames) {
+		//Split the row into its four fields
+		int fields = 0;
+		int fieldStart = start;
+		for (int i = start; i <= end && fields <= 4; i++) {
+			if (i == end || bytes[i] == delimiter) {
+				if (fields < 4) {
+					fieldStarts[fields] = fieldStart;
+					fieldEnds[fields] = i;
+				}
+				fields++;
+				fieldStart = i + 1;
+			}
+		}
+
+		if (fields != 4) {
+			rowsRead++;
+			rowsRejected++;
+			return null;
+		}
+
+		badNumber = false;
+		float seats = (float) parseNumber(bytes, fieldStarts[2], fieldEnds[2]);
+		float percent = (float) parseNumber(bytes, fieldStarts[3], fieldEnds[3]);
+		if (badNumber && firstRow) {
+			return null;
+		}
+
+		rowsRead++;
+		int nameStart = skipSpaces(bytes, fieldStarts[0], fieldEnds[0]);
+		int nameEnd = trimSpaces(bytes, nameStart, fieldEnds[0]);
+		int partyStart = skipSpaces(bytes, fieldStarts[1], fieldEnds[1]);
+		int partyEnd = trimSpaces(bytes, partyStart, fieldEnds[1]);
+		if (badNumber || seats < 0 || percent < 0 || percent > 100 || nameStart == nameEnd || partyStart == partyEnd) {
+			rowsRejected++;
+			return null;
+		}
+
+		//Rows of the same poll are usually next to each other, so only decode the poll name when it changes
+		PollRows poll = lastPoll;
+		if (poll == null || !poll.hasName(bytes, nameStart, nameEnd)) {
+			String pollName = new String(bytes, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8);
+			String key = Poll.nameKey(pollName);
+			poll = pollsByName.get(key);
+			if (poll == null) {
+				poll = new PollRows(pollName);
+				pollsByName.put(key, poll);
+				polls.add(poll);
+			}
+		}
+
+		String partyName = partyNames.get(bytes, partyStart, partyEnd);
+		if (!poll.add(partyName, partyNames.getLastId(), seats, percent / 100)) {
+			rowsRejected++;
+		}
+		return poll;
+	}
+
+	/**
+	 * Parses a decimal number such as 12, -3.5 or .25, ignoring spaces around it. Sets badNumber when the
+	 * field holds anything else.
+	 * @return The number, or 0 if it can't be read
+	 */
+	private double parseNumber(byte[] bytes, int start, int end) {
+		start = skipSpaces(bytes, start, end);
+		end = trimSpaces(bytes, start, end);
+
+		boolean negative = false;
+		if (start < end && (bytes[start] == '-' || bytes[start] == '+')) {
+			negative = bytes[start] == '-';
+			start++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = 0;
+		boolean point = false;
+		for (int i = start; i < end; i++) {
+			byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				//Digits past what a long can hold don't change a float, so leave them out
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (b - '0');
+					digits++;
+					if (point) {
+						decimals++;
+					}
+				}
+				else if (!point) {
+					decimals--;
+				}
+			}
+			else if (b == '.' && !point) {
+				point = true;
+			}
+			else {
+				badNumber = true;
+				return 0;
+			}
+		}
+
+		if (digits == 0) {
+			badNumber = true;
+			return 0;
+		}
+
+		double value = (decimals >= 0) ? mantissa / POWERS_OF_TEN[decimals] : mantissa * Math.pow(10, -decimals);
+		return negative ? -value : value;
+	}
+
+	private static int indexOf(byte[] bytes, byte b, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (bytes[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isBlank(byte[] bytes, int start, int end) {
+		return skipSpaces(bytes, start, end) == end;
+	}
+
+	private static int skipSpaces(byte[] bytes, int start, int end) {
+		while (start < end && (bytes[start] == ' ' || bytes[start] == '\t')) {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimSpaces(byte[] bytes, int start, int end) {
+		while (end > start && (bytes[end - 1] == ' ' || bytes[end - 1] == '\t')) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * The party rows read so far for one poll, kept in arrays until the Poll is built.
+	 */
+	private static class PollRows {
+		private String name;
+		private byte[] nameBytes;
+		private String[] partyNames = new String[8];
+		private int[] partyIds = new int[8];
+		private float[] seats = new float[8];
+		private float[] votes = new float[8];
+		private int size;
+
+		PollRows(String name) {
+			this.name = name;
+			nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		}
+
+		boolean hasName(byte[] bytes, int start, int end) {
+			return Arrays.equals(nameBytes, 0, nameBytes.length, bytes, start, end);
+		}
+
+		/**
+		 * Adds the row of a party, unless the poll already has a row for it.
+		 * @return False if the party was already in the poll
+		 */
+		boolean add(String partyName, int partyId, float projectedSeats, float projectedVotes) {
+			//Polls have few parties, so looking through them is quicker than a table
+			for (int i = 0; i < size; i++) {
+				if (partyIds[i] == partyId) {
+					return false;
+				}
+			}
+
+			if (size == partyNames.length) {
+				partyNames = Arrays.copyOf(partyNames, size * 2);
+				partyIds = Arrays.copyOf(partyIds, size * 2);
+				seats = Arrays.copyOf(seats, size * 2);
+				votes = Arrays.copyOf(votes, size * 2);
+			}
+			partyNames[size] = partyName;
+			partyIds[size] = partyId;
+			seats[size] = projectedSeats;
+			votes[size] = projectedVotes;
+			size++;
+			return true;
+		}
+
+		Poll toPoll() {
+			Poll poll = new Poll(name, size);
+			for (int i = 0; i < size; i++) {
+				poll.addParty(new Party(partyNames[i], seats[i], votes[i]));
+			}
+			return poll;
+		}
+	}
+
+	/**
+	 * Turns the bytes of a party name into a String, giving back the same String every time the same bytes are
+	 * seen so that a party name is only decoded and looked up in the PartyRegistry once per file. Open addressing
+	 * table keyed on the bytes.
+	 */
+	private static class PartyNames {
+		private byte[][] keys = new byte[64][];
+		private String[] names = new String[64];
+		private int[] ids = new int[64];
+		private int size;
+		//Registry ID of the name last given by get
+		private int lastId;
+
+		int getLastId() {
+			return lastId;
+		}
+
+		String get(byte[] bytes, int start, int end) {
+			int hash = 1;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + bytes[i];
+			}
+
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, start, end)) {
+					lastId = ids[slot];
+					return names[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			byte[] key = Arrays.copyOfRange(bytes, start, end);
+			String name = new String(key, StandardCharsets.UTF_8);
+			keys[slot] = key;
+			names[slot] = name;
+			ids[slot] = PartyRegistry.idOf(name);
+			lastId = ids[slot];
+			size++;
+			if (size * 2 > keys.length) {
+				grow();
+			}
+			return name;
+		}
+
+		private void grow() {
+			byte[][] oldKeys = keys;
+			String[] oldNames = names;
+			int[] oldIds = ids;
+			keys = new byte[oldKeys.length * 2][];
+			names = new String[oldKeys.length * 2];
+			ids = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = Arrays.hashCode(oldKeys[i]) & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					names[slot] = oldNames[i];
+					ids[slot] = oldIds[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+public class PollImporterTest {
+
+	private static final float DELTA = 0.0001f;
+
+	private static PollList importText(PollImporter importer, String text) throws IOException {
+		Path file = Files.createTempFile("polls", ".csv");
+		try {
+			Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+			return importer.importPolls(file, 338);
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	// Testing which rows are read, skipped and rejected
+	@Test
+	public void test_importPolls_headerBlankAndMalformedRows() throws IOException {
+		PollImporter importer = new PollImporter(',');
+		PollList list = importText(importer, "Poll,Party,Seats,Percent\r\n"
+				+ "Import One,Import Lib,150,35.5\r\n"
+				+ "\r\n"
+				+ "   \n"
+				+ "Import One,Import Con,120\n"
+				+ "Import One,Import Con,abc,30\n"
+				+ "Import One,Import Con,-1,30\n"
+				+ "Import One,Import Con,100,101\n"
+				+ ",Import Con,100,30\n"
+				+ "Import Two,Import Con,130,31\n"
+				+ "Import One,Import Con,120,30");
+
+		assertEquals("Header and blank lines aren't rows", 8, importer.getRowsRead());
+		assertEquals(5, importer.getRowsRejected());
+		assertEquals(2, list.getNumOfPolls());
+		Poll one = list.getPoll("Import One");
+		assertEquals(2, one.getNumberOfParties());
+		assertEquals(150, one.getParty("Import Lib").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(0.355f, one.getParty("Import Lib").getProjectedPercentageOfVotes(), DELTA);
+		assertEquals("Last line without a newline is read", 120, one.getParty("Import Con").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_importPolls_pollNamesDifferingInCase_samePoll() throws IOException {
+		PollImporter importer = new PollImporter(',');
+		PollList list = importText(importer, "Case Poll A,Case Lib,10,30\ncase poll a,Case Con,20,40\n");
+
+		assertEquals(2, importer.getRowsRead());
+		assertEquals(0, importer.getRowsRejected());
+		assertEquals(1, list.getNumOfPolls());
+		Poll poll = list.getPoll("CASE POLL A");
+		assertEquals("The poll is named as in its first row", "Case Poll A", poll.getPollName());
+		assertEquals(10, poll.getParty("Case Lib").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(20, poll.getParty("Case Con").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_importPolls_partyRepeatedInPoll_rejected() throws IOException {
+		PollImporter importer = new PollImporter('\t');
+		PollList list = importText(importer, "Repeat Poll\tRepeat Lib\t10\t30\nRepeat Poll\tREPEAT LIB\t20\t40\n");
+
+		assertEquals(2, importer.getRowsRead());
+		assertEquals(1, importer.getRowsRejected());
+		Poll poll = list.getPoll("Repeat Poll");
+		assertEquals(1, poll.getNumberOfParties());
+		assertEquals("The first row of the party is kept", 10, poll.getParty("Repeat Lib").getProjectedNumberOfSeats(), DELTA);
+	}
+}
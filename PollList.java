@@ -1,3 +1,10 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
 /**
  * 
  * @author Mohammad Aaraiz
@@ -7,13 +14,42 @@
 public class PollList {
 	//Instance variables
 	private Poll[] polls;
+	//Index after the last used slot of polls, new polls are added here
+	private int size;
+	//Number of polls in the list, removed polls leave empty slots below size until compacted
+	private int numOfPolls;
+	//Maps the lower case name of each poll to its index in the polls array
+	private HashMap<String, Integer> pollIndex = new HashMap<String, Integer>();
 	private int numOfSeats;
 	int MAX_STARS_FOR_VISUALIZATION = 18;
+	private int parallelThreshold = PollAggregator.DEFAULT_PARALLEL_THRESHOLD;
+	//Running sums and counts for every party in the polls, kept up to date as polls and their parties change
+	private PollAggregator totals = new PollAggregator();
+	//What each poll added to the running totals, in the same slot as the poll, taken away again when it leaves
+	private PollAggregator.Contribution[] contributions;
+	private double decayHalfLife = PollAggregator.DEFAULT_DECAY_HALF_LIFE;
+	//Baseline results of every riding, used by projectRidingSeats
+	private RidingModel ridingModel;
+
+	//Counts changes to the polls in the list, so the cached aggregates can tell when they are out of date
+	private int modCount;
+	//Aggregate polls and their visualizations, keyed by the lower case party names asked for
+	private HashMap<String, CachedAggregate> aggregateCache = new HashMap<String, CachedAggregate>();
+	private int aggregateCacheModCount;
+	private int aggregateCacheMaxStars;
+	private long aggregateCacheHits;
+	private long aggregateCacheMisses;
+	private static final int AGGREGATE_CACHE_LIMIT = 64;
+
+	//The newest snapshot of the list, replaced every time the list changes. Null until snapshot is first called,
+	//so a list that is never read through snapshots doesn't pay for publishing them
+	private final AtomicReference<PollListSnapshot> published = new AtomicReference<PollListSnapshot>();
 
 	/**
 	 * PollList constructor takes the number of polls and number of seats available 
-	 * in the election. Number of polls and seats should be at least 1. 
-	 * @param numOfPolls number of polls in PollList
+	 * in the election. Number of polls and seats should be at least 1. The list grows
+	 * when more polls than numOfPolls are added.
+	 * @param numOfPolls number of polls the list has room for at first
 	 * @param numOfSeats number of seats for PollList
 	 */
 	public PollList(int numOfPolls, int numOfSeats) {
@@ -32,123 +68,808 @@ public class PollList {
 			polls = new Poll[numOfPolls];
 			this.numOfSeats = numOfSeats;
 		}
+		contributions = new PollAggregator.Contribution[polls.length];
 	}
 	
 	/**
-	 * Getter methods: toArray returns polls instance
+	 * Getter methods: toArray returns a new array holding the polls in the list, in the order they were added
 	 * getNumOfSeats returns numOfSeats instance
+	 * getNumOfPolls returns the number of polls in the list
 	 */
 	public Poll[] toArray() {
-		return polls;
+		if (numOfPolls == size) {
+			return Arrays.copyOf(polls, size);
+		}
+
+		Poll[] snapshot = new Poll[numOfPolls];
+		int next = 0;
+		for (int i = 0; i < size; i++) {
+			if (polls[i] != null) {
+				snapshot[next++] = polls[i];
+			}
+		}
+		return snapshot;
+	}
+
+	public int getNumOfPolls() {
+		return numOfPolls;
+	}
+
+	/**
+	 * Gives the number of slots in use in the polls array, including slots left empty by removePoll.
+	 * Together with getPollAt, lets the polls be walked without copying them like toArray does.
+	 * @return Number of slots in use
+	 */
+	int getSlotCount() {
+		return size;
+	}
+
+	/**
+	 * Gives the poll in a slot of the polls array.
+	 * @param slot Index of the slot, less than getSlotCount
+	 * @return The poll in the slot, or null if the slot is empty
+	 */
+	Poll getPollAt(int slot) {
+		return polls[slot];
 	}
 
 	public int getNumOfSeats() {
 		return numOfSeats;
 	}
+
+	/**
+	 * Gives the newest snapshot of the list. A snapshot never changes, so any number of threads can aggregate
+	 * and draw it without locking while one thread keeps changing the list. Like the running totals, snapshots
+	 * see changes made through the list, to its polls and to their parties, and the number of stars used by the
+	 * list when they were published.
+	 * <p>
+	 * Snapshots are only published once this has been called, so the first call must be made by the thread that
+	 * changes the list, or before any other thread changes it. After that, every change publishes a new snapshot.
+	 * @return The snapshot published by the last change to the list
+	 */
+	public PollListSnapshot snapshot() {
+		PollListSnapshot snapshot = published.get();
+		if (snapshot == null) {
+			snapshot = newSnapshot();
+			published.set(snapshot);
+		}
+		return snapshot;
+	}
+
+	private PollListSnapshot newSnapshot() {
+		return PollListSnapshot.of(polls, size, numOfPolls, numOfSeats, MAX_STARS_FOR_VISUALIZATION, modCount,
+				totals.frozenCopy());
+	}
+
+	/**
+	 * Publishes a new snapshot of every poll in the list, sharing nothing with the earlier snapshots, if
+	 * snapshots have been asked for.
+	 */
+	private void publishAll() {
+		if (published.get() != null) {
+			published.set(newSnapshot());
+		}
+	}
+
+	/**
+	 * Publishes a new snapshot in which only one slot of the polls array has changed, if snapshots have been
+	 * asked for.
+	 * @param slot The slot that changed, either a slot already in use or the one just added at the end
+	 */
+	private void publishSlot(int slot) {
+		PollListSnapshot newest = published.get();
+		if (newest == null) {
+			return;
+		}
+		PollSnapshot poll = (polls[slot] == null) ? null : new PollSnapshot(polls[slot]);
+		published.set(newest.withSlot(slot, poll, numOfPolls, modCount, totals.frozenCopy()));
+	}
+
+	/**
+	 * Sets the number of polls above which recomputeAggregates splits the polls into ranges
+	 * and adds them up in parallel on the common ForkJoinPool. At or below this number the polls are added up
+	 * on the calling thread.
+	 * <p>
+	 * The parallel results can differ from the sequential ones because the sums are added in a different order.
+	 * The sums are kept in doubles and only rounded to float at the end, so the averages agree with the
+	 * sequential averages to within a relative difference of 1e-6 (one float rounding step).
+	 * @param parallelThreshold Number of polls, should be at least 1. Use Integer.MAX_VALUE to always add up sequentially.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		if (parallelThreshold < 1) {
+			System.out.println("Error: setParallelThreshold was called with an invalid argument: less than 1");
+		}
+
+		else {
+			this.parallelThreshold = parallelThreshold;
+		}
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
 	
 	/**
 	 * Method creates new Party object with name that is passed as parameter
 	 * Party object will contain average number of seats and average expected 
-	 * percentage of votes.
+	 * percentage of votes. The averages come from the running totals kept by addPoll and removePoll.
 	 * @param partyName Name of party
 	 * @return instance of Party
 	 */
 	public Party getAveragePartyData(String partyName) {
-		//New party object named partyName provided as argument
-		Party newParty = new Party(partyName);
-		float averageSeats = 0;
-		float averageVote = 0;
-		int totalCount = 0;
-		float sumSeat = 0;
-		float sumVote = 0;
-
-		for (int i = 0; i < polls.length; i++) {
-			if (polls[i] != null) {
-				//Getting party and storing in partyInPoll party object.
-				Party partyInPoll = polls[i].getParty(partyName);
-				if (partyInPoll != null) {
-					totalCount++;
-					sumSeat += partyInPoll.getProjectedNumberOfSeats();
-					sumVote += partyInPoll.getProjectedPercentageOfVotes();
-				}
-			}
-		}
-		
-		//To avoid dividing by zero or negative. 
-		if (totalCount > 0) {
-			averageSeats = sumSeat / totalCount;
-			averageVote = sumVote / totalCount;
-			
-			//Setting averages to newParty object
-			newParty.setProjectedPercentageOfVotes(averageVote);
-			newParty.setProjectedNumberOfSeats(averageSeats);
-		}
-		
-		return newParty;
+		return totals.getAverageParty(partyName);
+	}
+
+	/**
+	 * Creates a new Party with the average seats and votes of the party with the given PartyRegistry ID, found
+	 * without comparing names. The party is named with the canonical name of the ID.
+	 * @param partyId PartyRegistry ID of the party
+	 * @return instance of Party
+	 */
+	public Party getAveragePartyData(int partyId) {
+		return totals.getAverageParty(partyId);
 	}
 
 	/**
-	 * Creates aggregate poll of all polls provided and creates new poll object called Aggregate
+	 * Gives how much the named party's projected percentage of votes varies from poll to poll, as the sample
+	 * variance over the polls that contain the party. It comes from the same running totals as the averages.
+	 * @param partyName Name of party
+	 * @return The variance of the party's percentage of votes (between 0 and 1), or 0 if fewer than two polls have the party
+	 */
+	public double getVoteVariance(String partyName) {
+		return totals.getVoteVariance(partyName);
+	}
+
+	/**
+	 * Creates aggregate poll of all polls provided and creates new poll object called Aggregate.
+	 * The averages come from running totals that addPoll and removePoll keep up to date, so this
+	 * only takes time for the parties asked for, not for the polls in the list.
+	 * <p>
+	 * The aggregate poll is cached until the list changes, so asking again for the same parties (ignoring case)
+	 * only copies the cached poll instead of working out the averages again. Each call gives a new Poll, which
+	 * can be changed without changing what later calls give.
 	 * @param partyNames Name of party
 	 * @return Poll representing aggregate data of all polls in polls array
 	 */
 	public Poll getAggregatePoll(String[] partyNames) {
-		Poll Aggregate = new Poll("Aggregate", partyNames.length);
-		
-		//Gets average party data of parties and adds to new Poll object
-		for (int i = 0; i < partyNames.length; i++) {
-			Aggregate.addParty(getAveragePartyData(partyNames[i]));
+		long start = Metrics.start();
+		String key = aggregateKey(partyNames);
+		CachedAggregate cached = findCachedAggregate(key);
+		if (cached != null) {
+			aggregateCacheHits++;
 		}
-		
-		return Aggregate;
+		else {
+			aggregateCacheMisses++;
+			cached = addCachedAggregate(key, partyNames);
+		}
+		Poll aggregate = cached.aggregate.copy(partyNames.length);
+		Metrics.LIST_AGGREGATE_POLL.record(start);
+		return aggregate;
+	}
+
+	/**
+	 * Gives the visualization by seats of the aggregate poll for the named parties, the same text as
+	 * getAggregatePoll(partyNames).textVisualizationBySeats with this list's stars. It is cached with the
+	 * aggregate poll until the list changes.
+	 * @param partyNames Name of party
+	 * @return Visualization of the aggregate poll by seats
+	 */
+	public String getAggregateVisualizationBySeats(String[] partyNames) {
+		return getAggregateVisualization(partyNames, true);
+	}
+
+	/**
+	 * Gives the visualization by votes of the aggregate poll for the named parties, the same text as
+	 * getAggregatePoll(partyNames).textVisualizationByVotes with this list's stars. It is cached with the
+	 * aggregate poll until the list changes.
+	 * @param partyNames Name of party
+	 * @return Visualization of the aggregate poll by votes
+	 */
+	public String getAggregateVisualizationByVotes(String[] partyNames) {
+		return getAggregateVisualization(partyNames, false);
+	}
+
+	private String getAggregateVisualization(String[] partyNames, boolean useSeats) {
+		String key = aggregateKey(partyNames);
+		CachedAggregate cached = findCachedAggregate(key);
+		String visualization = (cached == null) ? null : (useSeats ? cached.bySeats : cached.byVotes);
+		if (visualization != null) {
+			aggregateCacheHits++;
+			return visualization;
+		}
+
+		aggregateCacheMisses++;
+		if (cached == null) {
+			cached = addCachedAggregate(key, partyNames);
+		}
+
+		if (useSeats) {
+			cached.bySeats = cached.aggregate.textVisualizationBySeats(MAX_STARS_FOR_VISUALIZATION, getNumOfSeatsPerStar());
+			return cached.bySeats;
+		}
+		cached.byVotes = cached.aggregate.textVisualizationByVotes(MAX_STARS_FOR_VISUALIZATION, getPercentOfVotesPerStar());
+		return cached.byVotes;
+	}
+
+	/**
+	 * Getter methods for the number of aggregate requests answered from the cache and the number that had to be
+	 * worked out, since the list was created.
+	 */
+	public long getAggregateCacheHits() {
+		return aggregateCacheHits;
+	}
+
+	public long getAggregateCacheMisses() {
+		return aggregateCacheMisses;
+	}
+
+	/**
+	 * Gives the cache key for a list of party names.
+	 * @param partyNames Names of parties
+	 * @return The lower case names, each followed by a separator
+	 */
+	private static String aggregateKey(String[] partyNames) {
+		StringBuilder key = new StringBuilder();
+		for (String partyName : partyNames) {
+			key.append(Poll.nameKey(partyName)).append('\0');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Looks up a cached aggregate, first emptying the cache if the list or the number of stars changed since
+	 * it was filled.
+	 * @param key Cache key of the party names
+	 * @return The cached aggregate, or null if there is none
+	 */
+	private CachedAggregate findCachedAggregate(String key) {
+		if (aggregateCacheModCount != modCount || aggregateCacheMaxStars != MAX_STARS_FOR_VISUALIZATION) {
+			aggregateCache.clear();
+			aggregateCacheModCount = modCount;
+			aggregateCacheMaxStars = MAX_STARS_FOR_VISUALIZATION;
+		}
+		return aggregateCache.get(key);
+	}
+
+	/**
+	 * Works out the aggregate poll for some parties and caches it. The cache is emptied when it gets too big.
+	 * @param key Cache key of the party names
+	 * @param partyNames Names of the parties
+	 * @return The new cached aggregate
+	 */
+	private CachedAggregate addCachedAggregate(String key, String[] partyNames) {
+		if (aggregateCache.size() >= AGGREGATE_CACHE_LIMIT) {
+			aggregateCache.clear();
+		}
+		CachedAggregate cached = new CachedAggregate(totals.toPoll("Aggregate", partyNames));
+		aggregateCache.put(key, cached);
+		return cached;
+	}
+
+	/**
+	 * Updates the running totals when a party is added to a poll in this list. Called by Poll.addParty.
+	 * @param poll The poll the party was added to
+	 * @param replacedId ID of the party with the same name that was replaced, or -1 if there was none
+	 * @param added The party that was added
+	 */
+	void partyAdded(Poll poll, int replacedId, Party added) {
+		int slot = slotOf(poll);
+		totals.replaceParty(contributions[slot], replacedId, added);
+		modCount++;
+		publishSlot(slot);
+	}
+
+	/**
+	 * Updates the running totals after the sample size or fieldwork date of a poll in this list changed.
+	 * Called by Poll's setters.
+	 * @param poll The poll that changed
+	 */
+	void pollChanged(Poll poll) {
+		int slot = slotOf(poll);
+		totals.removeContribution(contributions[slot]);
+		contributions[slot] = totals.addRecordedPoll(poll);
+		modCount++;
+		publishSlot(slot);
+	}
+
+	/**
+	 * Finds the slot of a poll in this list, through the poll index when the poll has a name.
+	 * @param poll A poll in this list
+	 * @return The index of the poll in the polls array
+	 */
+	private int slotOf(Poll poll) {
+		String key = pollKey(poll.getPollName());
+		Integer index = (key == null) ? null : pollIndex.get(key);
+		if (index != null && polls[index] == poll) {
+			return index;
+		}
+
+		int slot = 0;
+		while (polls[slot] != poll) {
+			slot++;
+		}
+		return slot;
+	}
+
+	/**
+	 * Creates a new Party with the average seats and votes of the named party, where each poll counts in
+	 * proportion to its sample size. Polls without a sample size are left out. Like the plain averages, these
+	 * come from running totals kept by addPoll and removePoll.
+	 * @param partyName Name of party
+	 * @return instance of Party, with no seats or votes if no poll with a sample size has the party
+	 */
+	public Party getWeightedAveragePartyData(String partyName) {
+		return totals.getWeightedAverageParty(partyName);
+	}
+
+	/**
+	 * Creates a poll called Weighted Aggregate with the sample size weighted average data of each named party.
+	 * @param partyNames Name of party
+	 * @return Poll representing weighted aggregate data of all polls in polls array
+	 */
+	public Poll getWeightedAggregatePoll(String[] partyNames) {
+		return totals.toWeightedPoll("Weighted Aggregate", partyNames);
+	}
+
+	/**
+	 * Creates a new Party with the average seats and votes of the named party, where a poll's weight halves for
+	 * every half-life its fieldwork date is older than the newest poll in the list. Polls without a fieldwork date
+	 * are left out. Adding a newer poll scales the running totals down once instead of weighting every poll again.
+	 * @param partyName Name of party
+	 * @return instance of Party, with no seats or votes if no poll with a fieldwork date has the party
+	 */
+	public Party getDecayedAveragePartyData(String partyName) {
+		return totals.getDecayedAverageParty(partyName);
 	}
 
 	/**
-	 * Adds Poll object provided in the argument and adds it to polls array.
+	 * Creates a poll called Decayed Aggregate with the recency weighted average data of each named party.
+	 * @param partyNames Name of party
+	 * @return Poll representing decayed aggregate data of all polls in polls array
+	 */
+	public Poll getDecayedAggregatePoll(String[] partyNames) {
+		return totals.toDecayedPoll("Decayed Aggregate", partyNames);
+	}
+
+	/**
+	 * Gives the aggregate of every window of the given number of polls, as a time series. The polls are taken in
+	 * the order they were added, and there is one aggregate for each poll, averaging it with the polls before it
+	 * (so the first windows hold fewer polls). Each aggregate is called "Aggregate to " followed by the name of
+	 * the window's last poll, and has that poll's fieldwork date.
+	 * <p>
+	 * The window slides by adding the newest poll to its sums and taking the oldest one away, so each step takes
+	 * time only for the parties in those two polls, however big the window is. The list should not be changed
+	 * by the action.
+	 * @param partyNames Names of the parties to put in each aggregate
+	 * @param windowPolls Number of polls in each window, at least 1
+	 * @param action Called with each aggregate, oldest window first
+	 */
+	public void forEachRollingAggregate(String[] partyNames, int windowPolls, Consumer<Poll> action) {
+		if (partyNames == null || action == null) {
+			System.out.println("Error: Null as argument");
+			return;
+		}
+		if (windowPolls < 1) {
+			System.out.println("Error: forEachRollingAggregate was called with an invalid argument: window must be at least 1 poll");
+			return;
+		}
+
+		Poll[] ordered = toArray();
+		PollAggregator window = newWindow(partyNames);
+		//Records of the polls in the window, the poll at position last is kept at last % windowPolls
+		PollAggregator.Contribution[] inWindow = new PollAggregator.Contribution[Math.min(windowPolls, ordered.length)];
+		for (int last = 0; last < ordered.length; last++) {
+			if (last >= windowPolls) {
+				window.removeContribution(inWindow[last % windowPolls]);
+			}
+			inWindow[last % windowPolls] = window.addRecordedPoll(ordered[last]);
+			action.accept(windowAggregate(window, partyNames, "Aggregate to " + ordered[last].getPollName(),
+					ordered[last].getFieldworkDate()));
+		}
+	}
+
+	/**
+	 * Gives the aggregate of the polls in the given number of days up to each fieldwork date, as a time series.
+	 * Polls are taken in order of fieldwork date, and polls without one are left out. There is one aggregate for
+	 * each date a poll was done on, averaging the polls from that date and the days before it that are in the
+	 * window. Each aggregate is called "Aggregate to " followed by the date, and has that fieldwork date.
+	 * <p>
+	 * The window slides the same way as in forEachRollingAggregate, so each step takes time only for the parties
+	 * in the polls that enter and leave the window. The list should not be changed by the action.
+	 * @param partyNames Names of the parties to put in each aggregate
+	 * @param windowDays Number of days in each window, at least 1
+	 * @param action Called with each aggregate, oldest date first
+	 */
+	public void forEachRollingAggregateByDays(String[] partyNames, int windowDays, Consumer<Poll> action) {
+		if (partyNames == null || action == null) {
+			System.out.println("Error: Null as argument");
+			return;
+		}
+		if (windowDays < 1) {
+			System.out.println("Error: forEachRollingAggregateByDays was called with an invalid argument: window must be at least 1 day");
+			return;
+		}
+
+		Poll[] dated = new Poll[numOfPolls];
+		int numOfDated = 0;
+		for (int i = 0; i < size; i++) {
+			if (polls[i] != null && polls[i].getFieldworkDate() != null) {
+				dated[numOfDated++] = polls[i];
+			}
+		}
+		//The sort is stable, so polls done on the same day stay in the order they were added
+		Arrays.sort(dated, 0, numOfDated, Comparator.comparing(Poll::getFieldworkDate));
+
+		PollAggregator window = newWindow(partyNames);
+		PollAggregator.Contribution[] records = new PollAggregator.Contribution[numOfDated];
+		int first = 0;
+		for (int last = 0; last < numOfDated; last++) {
+			records[last] = window.addRecordedPoll(dated[last]);
+			LocalDate day = dated[last].getFieldworkDate();
+			if (last + 1 < numOfDated && dated[last + 1].getFieldworkDate().equals(day)) {
+				continue;
+			}
+
+			//The window holds the polls after this date, up to and including the day
+			LocalDate start = day.minusDays(windowDays);
+			while (!dated[first].getFieldworkDate().isAfter(start)) {
+				window.removeContribution(records[first]);
+				records[first++] = null;
+			}
+			action.accept(windowAggregate(window, partyNames, "Aggregate to " + day, day));
+		}
+	}
+
+	/**
+	 * Gives the time series of forEachRollingAggregate as a new list, which can be drawn with its text
+	 * visualizations.
+	 * @param partyNames Names of the parties to put in each aggregate
+	 * @param windowPolls Number of polls in each window, at least 1
+	 * @return New PollList with the same number of seats, holding one aggregate for each poll
+	 */
+	public PollList getRollingAggregates(String[] partyNames, int windowPolls) {
+		PollList series = new PollList(Math.max(1, numOfPolls), numOfSeats);
+		forEachRollingAggregate(partyNames, windowPolls, series::addPoll);
+		return series;
+	}
+
+	/**
+	 * Gives the time series of forEachRollingAggregateByDays as a new list, which can be drawn with its text
+	 * visualizations.
+	 * @param partyNames Names of the parties to put in each aggregate
+	 * @param windowDays Number of days in each window, at least 1
+	 * @return New PollList with the same number of seats, holding one aggregate for each fieldwork date
+	 */
+	public PollList getRollingAggregatesByDays(String[] partyNames, int windowDays) {
+		PollList series = new PollList(Math.max(1, numOfPolls), numOfSeats);
+		forEachRollingAggregateByDays(partyNames, windowDays, series::addPoll);
+		return series;
+	}
+
+	/**
+	 * Creates the sums of a rolling window, with a column for each of the given parties only.
+	 */
+	private PollAggregator newWindow(String[] partyNames) {
+		PollAggregator window = new PollAggregator(partyNames);
+		window.setDecayHalfLife(decayHalfLife);
+		return window;
+	}
+
+	/**
+	 * Creates the aggregate poll of the polls in a rolling window.
+	 */
+	private static Poll windowAggregate(PollAggregator window, String[] partyNames, String pollName, LocalDate date) {
+		Poll aggregate = window.toPoll(pollName, partyNames);
+		aggregate.setFieldworkDate(date);
+		return aggregate;
+	}
+
+	/**
+	 * Sets how quickly older polls lose weight in getDecayedAveragePartyData. Every poll is added up again with
+	 * the new half-life.
+	 * @param days Number of days it takes a poll's weight to halve, greater than 0
+	 */
+	public void setDecayHalfLife(double days) {
+		if (!(days > 0)) {
+			System.out.println("Error: setDecayHalfLife was called with an invalid argument: value must be greater than 0");
+			return;
+		}
+		decayHalfLife = days;
+		recomputeAggregates();
+	}
+
+	public double getDecayHalfLife() {
+		return decayHalfLife;
+	}
+
+	/**
+	 * Throws away the running totals and adds up every poll again. The running totals are kept up to date as
+	 * polls and their parties change, so this is only needed to add up sums that have drifted by rounding after
+	 * very many changes, or after changing polls in bulk. Lists with more polls than the parallel threshold are
+	 * added up in parallel.
+	 */
+	public void recomputeAggregates() {
+		PollAggregator newTotals = new PollAggregator();
+		newTotals.setDecayHalfLife(decayHalfLife);
+		newTotals.addPollsInParallel(polls, 0, size, parallelThreshold, contributions);
+		totals = newTotals;
+		modCount++;
+		publishAll();
+	}
+
+	/**
+	 * Sets the projected seats of every party in every poll from its projected percentage of votes, splitting
+	 * this list's number of seats with the given allocator. The working arrays are made once and used for every
+	 * poll, and the running totals are added up once at the end with recomputeAggregates instead of after
+	 * every party.
+	 * @param allocator The seat allocation method, such as SeatAllocator.D_HONDT
+	 */
+	public void allocateSeats(SeatAllocator allocator) {
+		if (allocator == null) {
+			System.out.println("Error: Null as argument");
+			return;
+		}
+
+		boolean[] detached = detachPolls();
+
+		double[] votes = new double[0];
+		int[] seats = new int[0];
+		SeatAllocator.Workspace work = new SeatAllocator.Workspace(0);
+		for (int i = 0; i < size; i++) {
+			if (polls[i] == null) {
+				continue;
+			}
+
+			int numOfParties = polls[i].getNumberOfParties();
+			if (numOfParties > votes.length) {
+				votes = new double[numOfParties];
+				seats = new int[numOfParties];
+			}
+			allocator.allocate(polls[i], numOfSeats, votes, seats, work);
+		}
+
+		attachPolls(detached);
+		recomputeAggregates();
+	}
+
+	/**
+	 * Stops the polls that report to this list from telling it about changes to their parties, for changes made
+	 * in bulk that are followed by recomputeAggregates. attachPolls must be called afterwards.
+	 * @return Which slots held a poll that reported to this list
+	 */
+	private boolean[] detachPolls() {
+		boolean[] detached = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			if (polls[i] != null && polls[i].getOwner() == this) {
+				polls[i].setOwner(null);
+				detached[i] = true;
+			}
+		}
+		return detached;
+	}
+
+	private void attachPolls(boolean[] detached) {
+		for (int i = 0; i < detached.length; i++) {
+			if (detached[i]) {
+				polls[i].setOwner(this);
+			}
+		}
+	}
+
+	/**
+	 * Sets the riding by riding baseline results that projectRidingSeats projects the polls from.
+	 * @param model Model with one riding for every seat in this list, or null to remove the model
+	 */
+	public void setRidingModel(RidingModel model) {
+		if (model != null && model.getNumOfRidings() != numOfSeats) {
+			System.out.println("Error: setRidingModel was called with an invalid argument: number of ridings must equal the number of seats");
+			return;
+		}
+		ridingModel = model;
+	}
+
+	public RidingModel getRidingModel() {
+		return ridingModel;
+	}
+
+	/**
+	 * Sets the projected seats of every party in every poll to the number of ridings it wins under first past
+	 * the post, applying each poll's swing to the riding model. The ridings are projected in parallel for all
+	 * polls at once, and the running totals are added up once at the end with recomputeAggregates instead of
+	 * after every party.
+	 */
+	public void projectRidingSeats() {
+		if (ridingModel == null) {
+			System.out.println("Error: projectRidingSeats was called without a riding model");
+			return;
+		}
+
+		boolean[] detached = detachPolls();
+		ridingModel.applyTo(polls, size);
+		attachPolls(detached);
+		recomputeAggregates();
+	}
+
+	/**
+	 * Adds Poll object provided in the argument and adds it to the end of the polls array, making the array
+	 * bigger when it is full. If a poll with the same name (ignoring case) is already in the list, it is replaced
+	 * by the new poll. The running totals used by getAggregatePoll are updated for the parties in the poll.
 	 * Does not return anything
 	 * @param pollToAdd The poll to add into polls array
 	 */
 	public void addPoll(Poll pollToAdd) {
-		boolean doneLoop = false;
-		
+		long start = Metrics.start();
 		if (pollToAdd == null) {
 			System.out.println("Error: Null as argument");
-		} 
-		
-		//loop through polls and add argument to polls index
+			return;
+		}
+
+		String key = pollKey(pollToAdd.getPollName());
+		Integer index = (key == null) ? null : pollIndex.get(key);
+		if (index != null) {
+			totals.removeContribution(contributions[index]);
+			release(polls[index]);
+			polls[index] = pollToAdd;
+		}
+
 		else {
-			for (int i = 0; i < polls.length && doneLoop == false; i++) {
-				if (polls[i] == null) {
-					polls[i] = pollToAdd;
-					//set doneLoop to true to only add argument once where null
-					doneLoop = true;	
-				} 
-
-				else if (i == polls.length - 1 && polls[i] != null) {
-					System.out.println("PollList is full");
+			if (size == polls.length) {
+				polls = Arrays.copyOf(polls, polls.length * 2);
+				contributions = Arrays.copyOf(contributions, polls.length);
+			}
+
+			polls[size] = pollToAdd;
+			if (key != null) {
+				pollIndex.put(key, size);
+			}
+			index = size;
+			size++;
+			numOfPolls++;
+		}
+
+		contributions[index] = totals.addRecordedPoll(pollToAdd);
+		pollToAdd.setOwner(this);
+		modCount++;
+		publishSlot(index);
+		Metrics.LIST_ADD_POLL.record(start);
+	}
+
+	/**
+	 * Adds many polls at once, for loading whole lists. Works like calling addPoll for each poll, but the running
+	 * totals are added up once at the end with recomputeAggregates, in parallel for large lists.
+	 * @param newPolls Array holding the polls to add, null entries are skipped
+	 * @param count Number of entries of the array to add
+	 */
+	void addPolls(Poll[] newPolls, int count) {
+		if (size + count > polls.length) {
+			polls = Arrays.copyOf(polls, Math.max(size + count, polls.length * 2));
+			contributions = Arrays.copyOf(contributions, polls.length);
+		}
+
+		for (int i = 0; i < count; i++) {
+			Poll pollToAdd = newPolls[i];
+			if (pollToAdd == null) {
+				continue;
+			}
+
+			String key = pollKey(pollToAdd.getPollName());
+			Integer index = (key == null) ? null : pollIndex.get(key);
+			if (index != null) {
+				release(polls[index]);
+				polls[index] = pollToAdd;
+			}
+
+			else {
+				polls[size] = pollToAdd;
+				if (key != null) {
+					pollIndex.put(key, size);
 				}
+				size++;
+				numOfPolls++;
 			}
+			pollToAdd.setOwner(this);
+		}
+
+		recomputeAggregates();
+	}
+
+	/**
+	 * Stops a poll that is leaving this list from telling the list about new parties.
+	 * @param poll A poll that was in this list
+	 */
+	private void release(Poll poll) {
+		if (poll.getOwner() == this) {
+			poll.setOwner(null);
 		}
 	}
 
+	/**
+	 * Finds the poll with the given name, ignoring case.
+	 * @param pollName Name of the poll to find
+	 * @return The poll with that name, or null if no poll has that name
+	 */
+	public Poll getPoll(String pollName) {
+		String key = pollKey(pollName);
+		Integer index = (key == null) ? null : pollIndex.get(key);
+		return (index == null) ? null : polls[index];
+	}
+
+	/**
+	 * Removes the poll with the given name (ignoring case) from the polls array and takes its parties
+	 * away from the running totals used by getAggregatePoll.
+	 * @param pollName Name of the poll to remove
+	 * @return The poll that was removed, or null if no poll had that name
+	 */
+	public Poll removePoll(String pollName) {
+		String key = pollKey(pollName);
+		Integer index = (key == null) ? null : pollIndex.remove(key);
+		if (index == null) {
+			return null;
+		}
+
+		Poll removed = polls[index];
+		polls[index] = null;
+		numOfPolls--;
+		totals.removeContribution(contributions[index]);
+		contributions[index] = null;
+		release(removed);
+		modCount++;
+
+		//Close up the empty slots once they make up half the array, so removing stays cheap on average
+		if (size - numOfPolls > size / 2) {
+			compact();
+			publishAll();
+		}
+
+		else {
+			publishSlot(index);
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Moves the polls down over the empty slots left by removePoll, keeping their order, and updates the poll index.
+	 */
+	private void compact() {
+		int next = 0;
+		for (int i = 0; i < size; i++) {
+			if (polls[i] != null) {
+				polls[next] = polls[i];
+				contributions[next] = contributions[i];
+				String key = pollKey(polls[next].getPollName());
+				if (key != null) {
+					pollIndex.put(key, next);
+				}
+				next++;
+			}
+		}
+
+		Arrays.fill(polls, next, size, null);
+		Arrays.fill(contributions, next, size, null);
+		size = next;
+	}
+
+	/**
+	 * Gives the key a poll name is stored under in the poll index.
+	 * @param pollName The name of a poll.
+	 * @return The name in lower case, or null for a poll without a name.
+	 */
+	private static String pollKey(String pollName) {
+		return (pollName == null) ? null : Poll.nameKey(pollName);
+	}
+
 	/**
 	 * Gets visualization of each poll in the list.
 	 * Calculates number of stars per seat.
 	 * @return Visualization of poll by seats
 	 */
 	public String textVisualizationBySeats() {
-		float temp = (float) numOfSeats / MAX_STARS_FOR_VISUALIZATION;
-		int numOfSeatsPerStar = (int) Math.ceil(temp);
-		String textResult = "";
-		
-		for (int i = 0; i < polls.length; i++) {
-			if(polls[i] != null) {
-				textResult += polls[i].textVisualizationBySeats(MAX_STARS_FOR_VISUALIZATION, numOfSeatsPerStar);
-				textResult += "\n";
-			}
-		}
-		
-		return textResult;
+		long start = Metrics.start();
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, true);
+		Metrics.LIST_VISUALIZATION_BY_SEATS.record(start);
+		return textResult.toString();
 	}
 
 	/**
@@ -157,17 +878,45 @@ public class PollList {
 	 * @return Visualization of poll by votes
 	 */
 	public String textVisualizationByVotes() {
-		String textResult = "";
-		int percentOfVotesStar = (int) Math.ceil(100.0 / MAX_STARS_FOR_VISUALIZATION);
-		
-		for (int i = 0; i < polls.length; i++) {
+		long start = Metrics.start();
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, false);
+		Metrics.LIST_VISUALIZATION_BY_VOTES.record(start);
+		return textResult.toString();
+	}
+
+	/**
+	 * Appends the same text as textVisualizationBySeats or textVisualizationByVotes to the end of the given
+	 * StringBuilder, with every poll and party written straight into it.
+	 * @param out The StringBuilder to append to
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes
+	 */
+	public void appendVisualization(StringBuilder out, boolean useSeats) {
+		double valuePerStar = useSeats ? getNumOfSeatsPerStar() : getPercentOfVotesPerStar();
+
+		for (int i = 0; i < size; i++) {
 			if(polls[i] != null) {
-				textResult += polls[i].textVisualizationByVotes(MAX_STARS_FOR_VISUALIZATION, percentOfVotesStar);
-				textResult += "\n";
+				polls[i].appendVisualization(out, MAX_STARS_FOR_VISUALIZATION, valuePerStar, useSeats);
+				out.append('\n');
 			}
 		}
-		
-		return textResult;
+	}
+
+	/**
+	 * Calculates the number of seats represented by one star in the visualization by seats.
+	 * @return Number of seats per star
+	 */
+	int getNumOfSeatsPerStar() {
+		float temp = (float) numOfSeats / MAX_STARS_FOR_VISUALIZATION;
+		return (int) Math.ceil(temp);
+	}
+
+	/**
+	 * Calculates the percentage of votes represented by one star in the visualization by votes.
+	 * @return Percentage of votes per star
+	 */
+	int getPercentOfVotesPerStar() {
+		return (int) Math.ceil(100.0 / MAX_STARS_FOR_VISUALIZATION);
 	}
 
 	/**
@@ -175,6 +924,21 @@ public class PollList {
 	 * @return String visualization
 	 */
 	public String toString() {
-		return "Number of seats: " + numOfSeats + "\n" + textVisualizationBySeats();
+		StringBuilder result = new StringBuilder("Number of seats: ").append(numOfSeats).append('\n');
+		appendVisualization(result, true);
+		return result.toString();
+	}
+
+	/**
+	 * Aggregate poll for one list of party names, with its visualizations once they are asked for.
+	 */
+	private static class CachedAggregate {
+		private Poll aggregate;
+		private String bySeats;
+		private String byVotes;
+
+		CachedAggregate(Poll aggregate) {
+			this.aggregate = aggregate;
+		}
 	}
 }
\ No newline at end of file
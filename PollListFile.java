@@ -0,0 +1,310 @@
+import java.awt.Color;
+import java.time.LocalDate;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Saves a whole PollList to a compact binary file and loads it back again.
+ * <p>
+ * File layout:
+ * <pre>
+ * int magic, varint version
+ * varint numOfSeats
+ * varint number of party names, then each name
+ * varint number of polls, then for each poll:
+ *     name, varint size of the poll's party array, varint sample size,
+ *     byte 0 for no fieldwork date or 1 followed by the long epoch day of the date,
+ *     varint number of parties, then for each party:
+ *         varint index of its name, int bits of seats, int bits of votes,
+ *         byte 0 for no colour or 1 followed by the int ARGB value of the colour
+ * </pre>
+ * Names are a varint of the UTF-8 length plus one (0 for a null name) followed by the bytes. A party name is
+ * written once and referred to by its index after that. Varints use 7 bits per byte, low bits first. Seats and
+ * votes are stored as their exact float bits, so a saved list loads back exactly as it was.
+ * <p>
+ * Version 1 files, which have no sample size or fieldwork date, can still be loaded.
+ * <p>
+ * The file is written and read in one sequential pass through a buffer.
+ */
+public class PollListFile {
+	private static final int MAGIC = 0x504c4c46;
+	private static final int VERSION = 2;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Saves every poll in a PollList, replacing the file if it exists.
+	 * @param list The PollList to save
+	 * @param file Path of the file to write
+	 * @throws IOException If the file can't be written
+	 */
+	public static void save(PollList list, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			Output out = new Output(channel);
+			out.writeInt(MAGIC);
+			out.writeVarint(VERSION);
+			out.writeVarint(list.getNumOfSeats());
+
+			//The party names go first, so each party only needs an index
+			HashMap<String, Integer> nameIndex = new HashMap<String, Integer>();
+			String[] names = new String[16];
+			int slots = list.getSlotCount();
+			for (int i = 0; i < slots; i++) {
+				Poll poll = list.getPollAt(i);
+				if (poll != null) {
+					Party[] parties = poll.getParties();
+					for (int j = 0; j < poll.getNumberOfParties(); j++) {
+						String name = parties[j].getName();
+						if (!nameIndex.containsKey(name)) {
+							if (nameIndex.size() == names.length) {
+								names = Arrays.copyOf(names, names.length * 2);
+							}
+							names[nameIndex.size()] = name;
+							nameIndex.put(name, nameIndex.size());
+						}
+					}
+				}
+			}
+
+			out.writeVarint(nameIndex.size());
+			for (int i = 0; i < nameIndex.size(); i++) {
+				out.writeString(names[i]);
+			}
+
+			out.writeVarint(list.getNumOfPolls());
+			for (int i = 0; i < slots; i++) {
+				Poll poll = list.getPollAt(i);
+				if (poll == null) {
+					continue;
+				}
+
+				Party[] parties = poll.getParties();
+				int numberOfParties = poll.getNumberOfParties();
+				out.writeString(poll.getPollName());
+				out.writeVarint(parties.length);
+				out.writeVarint(poll.getSampleSize());
+				if (poll.getFieldworkDate() == null) {
+					out.writeByte(0);
+				}
+				else {
+					out.writeByte(1);
+					out.writeLong(poll.getFieldworkDate().toEpochDay());
+				}
+				out.writeVarint(numberOfParties);
+
+				for (int j = 0; j < numberOfParties; j++) {
+					Party party = parties[j];
+					out.writeVarint(nameIndex.get(party.getName()));
+					out.writeInt(Float.floatToRawIntBits(party.getProjectedNumberOfSeats()));
+					out.writeInt(Float.floatToRawIntBits(party.getProjectedPercentageOfVotes()));
+					if (party.getColour() == null) {
+						out.writeByte(0);
+					}
+					else {
+						out.writeByte(1);
+						out.writeInt(party.getColour().getRGB());
+					}
+				}
+			}
+
+			out.flush();
+		}
+	}
+
+	/**
+	 * Loads a PollList saved by save.
+	 * @param file Path of the file to read
+	 * @return New PollList holding the saved polls
+	 * @throws IOException If the file can't be read or is not a saved PollList
+	 */
+	public static PollList load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			Input in = new Input(channel);
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a saved PollList");
+			}
+			int version = in.readVarint();
+			if (version < 1 || version > VERSION) {
+				throw new IOException(file + " has unsupported PollList file version " + version);
+			}
+
+			int numOfSeats = in.readVarint();
+			//Each name is looked up in the PartyRegistry once, rather than once for every party that has it
+			String[] names = new String[in.readVarint()];
+			int[] ids = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = in.readString();
+				ids[i] = PartyRegistry.idOf(names[i]);
+			}
+
+			Poll[] polls = new Poll[in.readVarint()];
+			for (int i = 0; i < polls.length; i++) {
+				Poll poll = new Poll(in.readString(), in.readVarint());
+				if (version >= 2) {
+					poll.setSampleSize(in.readVarint());
+					if (in.readByte() != 0) {
+						poll.setFieldworkDate(LocalDate.ofEpochDay(in.readLong()));
+					}
+				}
+				int numberOfParties = in.readVarint();
+
+				for (int j = 0; j < numberOfParties; j++) {
+					int nameIndex = in.readVarint();
+					Party party = new Party(names[nameIndex], ids[nameIndex]);
+					party.setProjectedNumberOfSeats(Float.intBitsToFloat(in.readInt()));
+					party.setProjectedPercentageOfVotes(Float.intBitsToFloat(in.readInt()));
+					if (in.readByte() != 0) {
+						party.setColour(new Color(in.readInt(), true));
+					}
+					poll.addParty(party);
+				}
+
+				polls[i] = poll;
+			}
+
+			PollList list = new PollList(Math.max(1, polls.length), numOfSeats);
+			list.addPolls(polls, polls.length);
+			return list;
+		}
+	}
+
+	/**
+	 * Writes numbers and names to a channel through a buffer.
+	 */
+	private static class Output {
+		private FileChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+				if (buffer.capacity() < bytes) {
+					buffer = ByteBuffer.allocate(bytes);
+				}
+			}
+		}
+
+		void writeByte(int value) throws IOException {
+			ensure(1);
+			buffer.put((byte) value);
+		}
+
+		void writeInt(int value) throws IOException {
+			ensure(4);
+			buffer.putInt(value);
+		}
+
+		void writeLong(long value) throws IOException {
+			ensure(8);
+			buffer.putLong(value);
+		}
+
+		void writeVarint(int value) throws IOException {
+			ensure(5);
+			while ((value & ~0x7f) != 0) {
+				buffer.put((byte) ((value & 0x7f) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		void writeString(String value) throws IOException {
+			if (value == null) {
+				writeVarint(0);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length + 1);
+			ensure(bytes.length);
+			buffer.put(bytes);
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Reads numbers and names from a channel through a buffer.
+	 */
+	private static class Input {
+		private FileChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		Input(FileChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() >= bytes) {
+				return;
+			}
+			buffer.compact();
+			if (buffer.capacity() < bytes) {
+				ByteBuffer bigger = ByteBuffer.allocate(bytes);
+				buffer.flip();
+				bigger.put(buffer);
+				buffer = bigger;
+			}
+			while (buffer.position() < bytes) {
+				if (channel.read(buffer) < 0) {
+					throw new IOException("PollList file ended unexpectedly");
+				}
+			}
+			buffer.flip();
+		}
+
+		int readByte() throws IOException {
+			ensure(1);
+			return buffer.get();
+		}
+
+		int readInt() throws IOException {
+			ensure(4);
+			return buffer.getInt();
+		}
+
+		long readLong() throws IOException {
+			ensure(8);
+			return buffer.getLong();
+		}
+
+		int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("PollList file has a malformed number");
+		}
+
+		String readString() throws IOException {
+			int length = readVarint() - 1;
+			if (length < 0) {
+				return null;
+			}
+			ensure(length);
+			String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return value;
+		}
+	}
+}
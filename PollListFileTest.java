@@ -0,0 +1,77 @@
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class PollListFileTest {
+
+	private static PollList saveAndLoad(PollList list) throws IOException {
+		Path file = Files.createTempFile("polls", ".bin");
+		try {
+			PollListFile.save(list, file);
+			return PollListFile.load(file);
+		}
+		finally {
+			Files.delete(file);
+		}
+	}
+
+	// Testing that a saved list loads back exactly
+	@Test
+	public void test_load_savedList_sameAsSaved() throws IOException {
+		PollList list = new PollList(3, 338);
+		Poll first = new Poll("Sondage Québec", 4);
+		first.setSampleSize(1200);
+		first.setFieldworkDate(LocalDate.of(2021, 9, 14));
+		Party bloc = new Party("Bloc Québécois", 32.5f, 0.071f);
+		bloc.setColour(new Color(0x33, 0xb2, 0xcc, 0x80));
+		first.addParty(bloc);
+		first.addParty(new Party("Parti vert 緑", 1f, 0.023f));
+		list.addPoll(first);
+
+		Poll second = new Poll("File Second", 2);
+		Party liberal = new Party("File Liberal", 155.25f, 0.3f);
+		liberal.setColour(Color.RED);
+		second.addParty(liberal);
+		list.addPoll(second);
+
+		PollList loaded = saveAndLoad(list);
+		assertEquals(338, loaded.getNumOfSeats());
+		assertEquals(2, loaded.getNumOfPolls());
+
+		Poll loadedFirst = loaded.getPoll("Sondage Québec");
+		assertEquals("Sondage Québec", loadedFirst.getPollName());
+		assertEquals(1200, loadedFirst.getSampleSize());
+		assertEquals(LocalDate.of(2021, 9, 14), loadedFirst.getFieldworkDate());
+		assertEquals(2, loadedFirst.getNumberOfParties());
+		Party loadedBloc = loadedFirst.getParty("Bloc Québécois");
+		assertEquals("Bloc Québécois", loadedBloc.getName());
+		assertEquals(32.5f, loadedBloc.getProjectedNumberOfSeats(), 0);
+		assertEquals(0.071f, loadedBloc.getProjectedPercentageOfVotes(), 0);
+		assertEquals("Colour keeps its alpha", bloc.getColour().getRGB(), loadedBloc.getColour().getRGB());
+		assertEquals("Parti vert 緑", loadedFirst.getParty("Parti vert 緑").getName());
+		assertNull("Party without a colour loads without one", loadedFirst.getParty("Parti vert 緑").getColour());
+
+		Poll loadedSecond = loaded.getPoll("File Second");
+		assertNull(loadedSecond.getFieldworkDate());
+		assertEquals(Color.RED, loadedSecond.getParty("File Liberal").getColour());
+		assertEquals(155.25f, loaded.getAveragePartyData("File Liberal").getProjectedNumberOfSeats(), 0.0001);
+	}
+
+	@Test
+	public void test_load_emptyList_keepsSeats() throws IOException {
+		PollList loaded = saveAndLoad(new PollList(4, 338));
+		assertEquals(0, loaded.getNumOfPolls());
+		assertEquals(338, loaded.getNumOfSeats());
+
+		Poll poll = new Poll("After Empty", 1);
+		poll.addParty(new Party("File Green", 2f, 0.05f));
+		loaded.addPoll(poll);
+		assertEquals("An empty list loaded can still take polls", 1, loaded.getNumOfPolls());
+	}
+}
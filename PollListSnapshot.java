@@ -0,0 +1,288 @@
+import java.util.Arrays;
+
+/**
+ * The polls of a PollList and their running totals at one moment, which never change. PollList publishes a new
+ * snapshot every time it changes, so any number of threads can aggregate and draw the latest snapshot without
+ * locking and without copying, while one thread keeps changing the list.
+ * <p>
+ * The polls are kept in chunks of up to 1024 slots, found through a directory of chunks, with the same slots as
+ * the PollList's polls array (a removed poll leaves an empty slot). Snapshots share their chunks: a newer snapshot
+ * only writes to slots past the end of the older ones, which they never read, so adding a poll copies nothing.
+ * Replacing or removing a poll copies the one chunk holding it and the directory, not every poll. The running totals
+ * are a frozen copy of the list's, so averages and aggregate polls take time only for the parties asked for.
+ */
+public final class PollListSnapshot {
+	private static final int CHUNK_SHIFT = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	//Smallest chunk made, chunks double in size up to CHUNK_SIZE as they fill
+	private static final int FIRST_CHUNK_SIZE = 8;
+
+	//Instance variables
+	private final PollSnapshot[][] chunks;
+	//Index after the last slot this snapshot can see, and the number of polls in those slots
+	private final int size;
+	private final int numOfPolls;
+	private final int numOfSeats;
+	private final int maxStars;
+	private final int version;
+	private final PollAggregator totals;
+
+	private PollListSnapshot(PollSnapshot[][] chunks, int size, int numOfPolls, int numOfSeats, int maxStars,
+			int version, PollAggregator totals) {
+		this.chunks = chunks;
+		this.size = size;
+		this.numOfPolls = numOfPolls;
+		this.numOfSeats = numOfSeats;
+		this.maxStars = maxStars;
+		this.version = version;
+		this.totals = totals;
+	}
+
+	/**
+	 * Takes a snapshot of every poll in the slots of a PollList.
+	 * @param polls The polls array of the list, empty slots are null
+	 * @param size Number of slots in use
+	 * @param numOfPolls Number of polls in those slots
+	 * @param numOfSeats Number of seats in the election
+	 * @param maxStars Number of stars used in visualizations
+	 * @param version Change count of the list
+	 * @param totals Frozen running totals of the list
+	 * @return New snapshot that shares nothing with earlier ones
+	 */
+	static PollListSnapshot of(Poll[] polls, int size, int numOfPolls, int numOfSeats, int maxStars, int version,
+			PollAggregator totals) {
+		int numOfChunks = (size + CHUNK_MASK) >>> CHUNK_SHIFT;
+		PollSnapshot[][] chunks = new PollSnapshot[Math.max(1, numOfChunks)][];
+		for (int chunk = 0; chunk < numOfChunks; chunk++) {
+			int first = chunk << CHUNK_SHIFT;
+			int length = Math.min(CHUNK_SIZE, size - first);
+			chunks[chunk] = new PollSnapshot[Math.max(FIRST_CHUNK_SIZE, length)];
+			for (int offset = 0; offset < length; offset++) {
+				Poll poll = polls[first + offset];
+				if (poll != null) {
+					chunks[chunk][offset] = new PollSnapshot(poll);
+				}
+			}
+		}
+		return new PollListSnapshot(chunks, size, numOfPolls, numOfSeats, maxStars, version, totals);
+	}
+
+	/**
+	 * Creates the next snapshot of the same list with one slot set. Only the newest snapshot of a list may be used
+	 * to make the next one, because a slot past the end of this snapshot is written in place.
+	 * @param slot The slot that changed, at most the size of this snapshot
+	 * @param poll Snapshot of the poll now in the slot, or null if the slot is now empty
+	 * @param numOfPolls Number of polls in the list now
+	 * @param version Change count of the list
+	 * @param totals Frozen running totals of the list
+	 * @return New snapshot
+	 */
+	PollListSnapshot withSlot(int slot, PollSnapshot poll, int numOfPolls, int version, PollAggregator totals) {
+		int chunk = slot >>> CHUNK_SHIFT;
+		int offset = slot & CHUNK_MASK;
+		PollSnapshot[][] newChunks = chunks;
+
+		if (slot < size) {
+			//The slot can be seen by older snapshots, so copy its chunk and the directory pointing to it
+			newChunks = chunks.clone();
+			newChunks[chunk] = chunks[chunk].clone();
+		}
+
+		else if (chunk == chunks.length) {
+			newChunks = Arrays.copyOf(chunks, chunks.length * 2);
+			newChunks[chunk] = new PollSnapshot[FIRST_CHUNK_SIZE];
+		}
+
+		else if (chunks[chunk] == null) {
+			//No older snapshot reads this entry of the directory yet
+			newChunks[chunk] = new PollSnapshot[FIRST_CHUNK_SIZE];
+		}
+
+		else if (offset == chunks[chunk].length) {
+			//Older snapshots still read the old chunk through the directory, so the directory is copied too
+			newChunks = chunks.clone();
+			newChunks[chunk] = Arrays.copyOf(chunks[chunk], Math.min(CHUNK_SIZE, offset * 2));
+		}
+
+		newChunks[chunk][offset] = poll;
+		return new PollListSnapshot(newChunks, Math.max(size, slot + 1), numOfPolls, numOfSeats, maxStars, version, totals);
+	}
+
+	/**
+	 * Getter methods: getVersion returns the change count of the list when this snapshot was published, which is
+	 * higher for every newer snapshot of the same list
+	 * getNumOfPolls returns the number of polls in the snapshot
+	 * getNumOfSeats returns the number of seats in the election
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public int getNumOfPolls() {
+		return numOfPolls;
+	}
+
+	public int getNumOfSeats() {
+		return numOfSeats;
+	}
+
+	/**
+	 * Gives a new array holding the polls in the snapshot, in the order they were added to the list.
+	 * @return Array of the polls
+	 */
+	public PollSnapshot[] toArray() {
+		PollSnapshot[] polls = new PollSnapshot[numOfPolls];
+		int next = 0;
+		for (int slot = 0; slot < size; slot++) {
+			PollSnapshot poll = pollAt(slot);
+			if (poll != null) {
+				polls[next++] = poll;
+			}
+		}
+		return polls;
+	}
+
+	/**
+	 * Finds the poll with the given name, ignoring case the same way PollList.getPoll does. The snapshot has no
+	 * index of names, so the polls are looked through one at a time.
+	 * @param pollName Name of the poll to find
+	 * @return The poll, or null if no poll in the snapshot has that name
+	 */
+	public PollSnapshot getPoll(String pollName) {
+		if (pollName == null) {
+			return null;
+		}
+		String key = Poll.nameKey(pollName);
+		for (int slot = 0; slot < size; slot++) {
+			PollSnapshot poll = pollAt(slot);
+			if (poll != null && poll.getPollName() != null && key.equals(Poll.nameKey(poll.getPollName()))) {
+				return poll;
+			}
+		}
+		return null;
+	}
+
+	private PollSnapshot pollAt(int slot) {
+		return chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+	}
+
+	/**
+	 * Creates a new Party with the average seats and votes of the named party over the polls in the snapshot,
+	 * as PollList.getAveragePartyData does.
+	 * @param partyName Name of party
+	 * @return instance of Party
+	 */
+	public Party getAveragePartyData(String partyName) {
+		return totals.getAverageParty(partyName);
+	}
+
+	/**
+	 * Gives the sample variance of the named party's votes over the polls in the snapshot, as
+	 * PollList.getVoteVariance does.
+	 * @param partyName Name of party
+	 * @return The variance of the party's percentage of votes, or 0 if fewer than two polls have the party
+	 */
+	public double getVoteVariance(String partyName) {
+		return totals.getVoteVariance(partyName);
+	}
+
+	/**
+	 * Creates a new Party with the sample size weighted averages of the named party, as
+	 * PollList.getWeightedAveragePartyData does.
+	 * @param partyName Name of party
+	 * @return instance of Party
+	 */
+	public Party getWeightedAveragePartyData(String partyName) {
+		return totals.getWeightedAverageParty(partyName);
+	}
+
+	/**
+	 * Creates a new Party with the recency weighted averages of the named party, as
+	 * PollList.getDecayedAveragePartyData does.
+	 * @param partyName Name of party
+	 * @return instance of Party
+	 */
+	public Party getDecayedAveragePartyData(String partyName) {
+		return totals.getDecayedAverageParty(partyName);
+	}
+
+	/**
+	 * Creates aggregate poll of all polls in the snapshot called Aggregate.
+	 * @param partyNames Name of party
+	 * @return New Poll representing aggregate data of all polls in the snapshot
+	 */
+	public Poll getAggregatePoll(String[] partyNames) {
+		return totals.toPoll("Aggregate", partyNames);
+	}
+
+	/**
+	 * Creates a poll called Weighted Aggregate with the sample size weighted averages of each named party.
+	 * @param partyNames Name of party
+	 * @return New Poll representing weighted aggregate data of all polls in the snapshot
+	 */
+	public Poll getWeightedAggregatePoll(String[] partyNames) {
+		return totals.toWeightedPoll("Weighted Aggregate", partyNames);
+	}
+
+	/**
+	 * Creates a poll called Decayed Aggregate with the recency weighted averages of each named party.
+	 * @param partyNames Name of party
+	 * @return New Poll representing decayed aggregate data of all polls in the snapshot
+	 */
+	public Poll getDecayedAggregatePoll(String[] partyNames) {
+		return totals.toDecayedPoll("Decayed Aggregate", partyNames);
+	}
+
+	/**
+	 * Gets visualization of each poll in the snapshot, the same text PollList.textVisualizationBySeats gave
+	 * when the snapshot was published.
+	 * @return Visualization of polls by seats
+	 */
+	public String textVisualizationBySeats() {
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, true);
+		return textResult.toString();
+	}
+
+	/**
+	 * Gets visualization of each poll in the snapshot, the same text PollList.textVisualizationByVotes gave
+	 * when the snapshot was published.
+	 * @return Visualization of polls by votes
+	 */
+	public String textVisualizationByVotes() {
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, false);
+		return textResult.toString();
+	}
+
+	/**
+	 * Appends the visualization of every poll in the snapshot to the end of the given StringBuilder.
+	 * @param out The StringBuilder to append to
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes
+	 */
+	public void appendVisualization(StringBuilder out, boolean useSeats) {
+		double valuePerStar = useSeats
+				? (int) Math.ceil((float) numOfSeats / maxStars)
+				: (int) Math.ceil(100.0 / maxStars);
+		char[] formatHelper = new char[maxStars + 1];
+
+		for (int slot = 0; slot < size; slot++) {
+			PollSnapshot poll = pollAt(slot);
+			if (poll != null) {
+				poll.appendVisualization(out, formatHelper, maxStars, valuePerStar, useSeats);
+				out.append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Gives the same text as PollList.toString did when the snapshot was published.
+	 * @return String visualization
+	 */
+	public String toString() {
+		StringBuilder result = new StringBuilder("Number of seats: ").append(numOfSeats).append('\n');
+		appendVisualization(result, true);
+		return result.toString();
+	}
+}
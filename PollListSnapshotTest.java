@@ -0,0 +1,133 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class PollListSnapshotTest {
+
+	// Testing that snapshots never change
+	@Test
+	public void test_snapshot_laterChanges_notSeen() {
+		PollList list = new PollList(5, 338);
+		Poll first = PollListTest.pollWith("First", new Party("CPC", 100, 0.3f));
+		list.addPoll(first);
+		list.addPoll(PollListTest.pollWith("Second", new Party("CPC", 200, 0.4f)));
+		PollListSnapshot snapshot = list.snapshot();
+		String text = snapshot.textVisualizationBySeats();
+
+		first.addParty(new Party("NDP", 50, 0.2f));
+		list.addPoll(PollListTest.pollWith("Third", new Party("CPC", 300, 0.5f)));
+		list.removePoll("second");
+
+		assertEquals("Number of polls when the snapshot was taken", 2, snapshot.getNumOfPolls());
+		assertEquals("Visualization when the snapshot was taken", text, snapshot.textVisualizationBySeats());
+		assertEquals("Average when the snapshot was taken", 150, snapshot.getAveragePartyData("CPC").getProjectedNumberOfSeats(), 0.0001);
+		assertNull("Party added later is not in the snapshot", snapshot.getPoll("first").getParty("NDP"));
+		assertNotNull("Party added later is in the newest snapshot", list.snapshot().getPoll("first").getParty("NDP"));
+		assertTrue("Newer snapshots have higher versions", list.snapshot().getVersion() > snapshot.getVersion());
+	}
+
+	@Test
+	public void test_snapshot_manyChanges_sameAsPollList() {
+		Factory factory = new Factory(338, 2);
+		PollList list = new PollList(5, 338);
+		String[] partyNames = factory.getPartyNames();
+		//Enough polls to fill several chunks, with removals that leave empty slots and compact the list
+		for (int i = 0; i < 3000; i++) {
+			list.addPoll(factory.createRandomPoll("Poll" + i));
+			if (i % 3 == 2) {
+				list.removePoll("Poll" + (i / 2));
+			}
+			if (i % 500 == 0) {
+				list.addPoll(factory.createRandomPoll("Poll" + (i / 4)));
+				PollListSnapshot snapshot = list.snapshot();
+				assertEquals("Same number of polls", list.getNumOfPolls(), snapshot.getNumOfPolls());
+				assertEquals("Same visualization by seats", list.textVisualizationBySeats(), snapshot.textVisualizationBySeats());
+				assertEquals("Same visualization by votes", list.textVisualizationByVotes(), snapshot.textVisualizationByVotes());
+				assertEquals("Same aggregate", list.getAggregatePoll(partyNames).textVisualizationBySeats(18, 19),
+						snapshot.getAggregatePoll(partyNames).textVisualizationBySeats(18, 19));
+			}
+		}
+		assertEquals("Same text", list.toString(), list.snapshot().toString());
+		assertEquals("Same polls in order", list.toArray().length, list.snapshot().toArray().length);
+	}
+
+	@Test
+	public void test_snapshot_firstCall_builtFromList() {
+		PollList list = new PollList(5, 338);
+		list.addPoll(PollListTest.pollWith("Lazy", new Party("CPC", 100, 0.3f)));
+		list.addPoll(PollListTest.pollWith("Lazy Two", new Party("CPC", 200, 0.4f)));
+		PollListSnapshot first = list.snapshot();
+		assertEquals("First snapshot is built from the list as it is", 2, first.getNumOfPolls());
+		assertSame("No change, no new snapshot", first, list.snapshot());
+
+		list.removePoll("Lazy");
+		assertEquals(1, list.snapshot().getNumOfPolls());
+		assertEquals(200, list.snapshot().getAveragePartyData("CPC").getProjectedNumberOfSeats(), 0.0001);
+	}
+
+	@Test
+	public void test_getPoll_sameMatchesAsPollList() {
+		PollList list = new PollList(5, 338);
+		//Dotted capital I, which equalsIgnoreCase matches to a plain i but its lower case key doesn't
+		list.addPoll(PollListTest.pollWith("\u0130stanbul Poll", new Party("CPC", 100, 0.3f)));
+		list.addPoll(PollListTest.pollWith("Second Poll", new Party("CPC", 200, 0.4f)));
+		PollListSnapshot snapshot = list.snapshot();
+
+		for (String name : new String[] {"istanbul poll", "\u0130STANBUL POLL", "second POLL", "Third Poll"}) {
+			assertEquals("Found by " + name, list.getPoll(name) != null, snapshot.getPoll(name) != null);
+		}
+		assertNull(snapshot.getPoll("istanbul poll"));
+		assertEquals("Second Poll", snapshot.getPoll("SECOND poll").getPollName());
+	}
+
+	// Testing readers on other threads
+	@Test(timeout = 60000)
+	public void test_snapshot_readWhileWriting_alwaysConsistent() throws InterruptedException {
+		PollList list = new PollList(5, 338);
+		list.addPoll(PollListTest.pollWith("Swing", new Party("A", 338, 1), new Party("B", 0, 0)));
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		//Snapshots are published from the first call on, which is made here before the reader starts
+		list.snapshot();
+
+		Thread reader = new Thread(() -> {
+			try {
+				int lastVersion = -1;
+				while (!done.get()) {
+					PollListSnapshot snapshot = list.snapshot();
+					PollSnapshot swing = snapshot.getPoll("Swing");
+					assertEquals("Seats of A and B in the poll always add to 338", 338,
+							swing.getParty("A").getProjectedNumberOfSeats() + swing.getParty("B").getProjectedNumberOfSeats(), 0.0001);
+					Poll aggregate = snapshot.getAggregatePoll(new String[] {"A", "B"});
+					assertEquals("Seats of A and B in the aggregate always add to 338", 338,
+							aggregate.getParty("A").getProjectedNumberOfSeats() + aggregate.getParty("B").getProjectedNumberOfSeats(), 0.0001);
+					assertEquals("Polls seen match the count", snapshot.getNumOfPolls(), snapshot.toArray().length);
+					assertTrue("Versions never go back", snapshot.getVersion() >= lastVersion);
+					lastVersion = snapshot.getVersion();
+				}
+			}
+			catch (Throwable e) {
+				failure.set(e);
+			}
+		});
+		reader.start();
+
+		for (int i = 0; i < 20000; i++) {
+			int seats = i % 339;
+			list.addPoll(PollListTest.pollWith("Swing", new Party("A", seats, seats / 338f), new Party("B", 338 - seats, (338 - seats) / 338f)));
+			list.addPoll(PollListTest.pollWith("Extra" + i, new Party("C", 1, 0.001f)));
+			if (i % 2 == 1) {
+				list.removePoll("Extra" + (i - 1));
+			}
+		}
+		done.set(true);
+		reader.join();
+
+		if (failure.get() != null) {
+			throw new AssertionError("Reader saw an inconsistent snapshot", failure.get());
+		}
+	}
+}
@@ -0,0 +1,379 @@
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PollListTest {
+
+	private static final float DELTA = 0.0001f;
+
+	private static void assertSameAverages(String message, Poll expected, Poll actual, String[] partyNames) {
+		for (String partyName : partyNames) {
+			assertEquals(message + " votes of " + partyName, expected.getParty(partyName).getProjectedPercentageOfVotes(),
+					actual.getParty(partyName).getProjectedPercentageOfVotes(), DELTA);
+			assertEquals(message + " seats of " + partyName, expected.getParty(partyName).getProjectedNumberOfSeats(),
+					actual.getParty(partyName).getProjectedNumberOfSeats(), DELTA);
+		}
+	}
+
+	/**
+	 * Creates a poll holding the given parties, with room for one more. Also used by the other list tests.
+	 */
+	static Poll pollWith(String name, Party... parties) {
+		Poll poll = new Poll(name, parties.length + 1);
+		for (Party party : parties) {
+			poll.addParty(party);
+		}
+		return poll;
+	}
+
+	// Testing that adding up the polls in parallel gives the same averages
+	@Test
+	public void test_recomputeAggregates_parallel_sameAsSequential() {
+		Factory factory = new Factory(338, 3);
+		String[] partyNames = factory.getPartyNames();
+		PollList list = factory.createRandomPollList(5000);
+		for (int i = 0; i < 5000; i += 3) {
+			list.removePoll("Poll" + i);
+		}
+		list.recomputeAggregates();
+		Poll sequential = list.getAggregatePoll(partyNames);
+
+		list.setParallelThreshold(100);
+		list.recomputeAggregates();
+		Poll parallel = list.getAggregatePoll(partyNames);
+		assertNotSame(sequential, parallel);
+		for (String partyName : partyNames) {
+			float seats = sequential.getParty(partyName).getProjectedNumberOfSeats();
+			assertEquals("Seats of " + partyName, seats, parallel.getParty(partyName).getProjectedNumberOfSeats(), seats * 1e-6);
+			float votes = sequential.getParty(partyName).getProjectedPercentageOfVotes();
+			assertEquals("Votes of " + partyName, votes, parallel.getParty(partyName).getProjectedPercentageOfVotes(), votes * 1e-6);
+		}
+	}
+
+	// Testing removing polls and closing up the empty slots they leave
+	@Test
+	public void test_removePoll_halfRemoved_compactedInOrder() {
+		PollList list = new PollList(4, 338);
+		for (int i = 0; i < 10; i++) {
+			list.addPoll(pollWith("Poll" + i, new Party("Gamma", i, i / 100f)));
+		}
+		Poll removed = list.removePoll("POLL3");
+		assertEquals("Poll3", removed.getPollName());
+		assertNull("A poll that left the list doesn't report to it", removed.getOwner());
+		assertNull("Removing a poll that isn't there", list.removePoll("Poll3"));
+		assertEquals("One removal leaves an empty slot", 10, list.getSlotCount());
+
+		for (int i : new int[] {0, 5, 6, 8, 9}) {
+			list.removePoll("Poll" + i);
+		}
+		assertEquals(4, list.getNumOfPolls());
+		assertEquals("More than half empty, so the slots were closed up", 4, list.getSlotCount());
+
+		Poll[] polls = list.toArray();
+		String[] expected = {"Poll1", "Poll2", "Poll4", "Poll7"};
+		assertEquals(expected.length, polls.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("Polls keep the order they were added in", expected[i], polls[i].getPollName());
+			assertSame("Poll index points at the moved slot", polls[i], list.getPoll(expected[i]));
+		}
+		assertEquals((1 + 2 + 4 + 7) / 4f, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		list.addPoll(pollWith("Poll0", new Party("Gamma", 10, 0.1f)));
+		assertEquals("A poll added again goes at the end", "Poll0", list.toArray()[4].getPollName());
+		list.removePoll("Poll7");
+		assertEquals((1 + 2 + 4 + 10) / 4f, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	// Testing that the running totals stay exact when polls change while in the list
+	@Test
+	public void test_removePoll_partyChangedSinceAdded_totalsExact() {
+		PollList list = new PollList(5, 338);
+		Party gamma = new Party("Gamma", 40, 0.4f);
+		list.addPoll(pollWith("S", gamma));
+		gamma.setProjectedPercentageOfVotes(0.1f);
+		list.addPoll(pollWith("S2", new Party("Gamma", 60, 0.6f)));
+		list.removePoll("S");
+
+		assertEquals(0.6f, list.getAveragePartyData("Gamma").getProjectedPercentageOfVotes(), DELTA);
+		assertEquals(60, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_partySetters_pollInList_totalsFollow() {
+		PollList list = new PollList(5, 338);
+		Party gamma = new Party("Gamma", 40, 0.4f);
+		Poll poll = pollWith("S", gamma);
+		list.addPoll(poll);
+		list.addPoll(pollWith("S2", new Party("Gamma", 60, 0.6f)));
+		String[] names = {"Gamma"};
+		assertEquals(50, list.getAggregatePoll(names).getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+		PollListSnapshot before = list.snapshot();
+
+		gamma.setProjectedNumberOfSeats(20);
+		gamma.setProjectedPercentageOfVotes(0.2f);
+		assertEquals("Average follows the new seats", 40, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(0.4f, list.getAveragePartyData("Gamma").getProjectedPercentageOfVotes(), DELTA);
+		assertEquals("Cached aggregate is dropped", 40, list.getAggregatePoll(names).getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(40, list.snapshot().getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals("Older snapshots don't change", 50, before.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		gamma.setColour(Color.RED);
+		assertEquals(Color.RED, list.snapshot().getPoll("S").getParty("Gamma").getColour());
+
+		poll.setSampleSize(1000);
+		assertEquals(20, list.getWeightedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		poll.setFieldworkDate(LocalDate.of(2021, 9, 1));
+		assertEquals(20, list.getDecayedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		list.removePoll("S2");
+		assertEquals(20, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		list.recomputeAggregates();
+		assertEquals("Same as adding up again", 20, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_allocateSeats_pollsStillReportAfterwards() {
+		PollList list = new PollList(5, 10);
+		Party gamma = new Party("Gamma", 0, 0.6f);
+		list.addPoll(pollWith("S", gamma, new Party("Delta", 0, 0.4f)));
+		list.allocateSeats(SeatAllocator.LARGEST_REMAINDER);
+		assertEquals(6, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		gamma.setProjectedNumberOfSeats(7);
+		assertEquals(7, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_addPoll_replacesChangedPoll_totalsExact() {
+		PollList list = new PollList(5, 338);
+		Poll first = pollWith("S", new Party("Gamma", 40, 0.4f));
+		first.setSampleSize(1000);
+		list.addPoll(first);
+		first.getParty("Gamma").setProjectedNumberOfSeats(10);
+		first.setSampleSize(10);
+		list.addPoll(pollWith("s", new Party("Gamma", 20, 0.2f)));
+
+		assertEquals(1, list.getNumOfPolls());
+		assertEquals(20, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals("The replaced poll's weight is gone as well", 0,
+				list.getWeightedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_addParty_replacesChangedParty_totalsExact() {
+		PollList list = new PollList(5, 338);
+		Party gamma = new Party("Gamma", 40, 0.4f);
+		Poll poll = pollWith("S", gamma, new Party("Delta", 10, 0.1f));
+		list.addPoll(poll);
+		gamma.setProjectedNumberOfSeats(5);
+		poll.addParty(new Party("GAMMA", 30, 0.3f));
+		list.addPoll(pollWith("S2", new Party("Gamma", 50, 0.5f)));
+
+		assertEquals(40, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		list.removePoll("S");
+		assertEquals(50, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals("No poll has Delta any more", 0, list.getAveragePartyData("Delta").getProjectedNumberOfSeats(), DELTA);
+
+		list.recomputeAggregates();
+		assertEquals(50, list.getAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	// Testing that cached aggregates are thrown away when the list changes
+	@Test
+	public void test_getAggregatePoll_cachedUntilListChanges() {
+		PollList list = new PollList(5, 338);
+		Poll poll = pollWith("S", new Party("Gamma", 40, 0.4f));
+		list.addPoll(poll);
+		list.getAggregatePoll(new String[] {"Gamma", "Delta"});
+		list.getAggregatePoll(new String[] {"GAMMA", "delta"});
+		assertEquals("Same parties in any case", 1, list.getAggregateCacheHits());
+		assertEquals(1, list.getAggregateCacheMisses());
+
+		list.addPoll(pollWith("S2", new Party("Gamma", 60, 0.6f)));
+		Poll afterAdd = list.getAggregatePoll(new String[] {"Gamma", "Delta"});
+		assertEquals("addPoll", 2, list.getAggregateCacheMisses());
+		assertEquals(50, afterAdd.getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		poll.addParty(new Party("Delta", 10, 0.1f));
+		Poll afterAddParty = list.getAggregatePoll(new String[] {"Gamma", "Delta"});
+		assertEquals("Poll.addParty", 3, list.getAggregateCacheMisses());
+		assertEquals(10, afterAddParty.getParty("Delta").getProjectedNumberOfSeats(), DELTA);
+
+		list.removePoll("S2");
+		Poll afterRemove = list.getAggregatePoll(new String[] {"Gamma", "Delta"});
+		assertEquals("removePoll", 4, list.getAggregateCacheMisses());
+		assertEquals(40, afterRemove.getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		list.recomputeAggregates();
+		list.getAggregatePoll(new String[] {"Gamma", "Delta"});
+		assertEquals("recomputeAggregates", 5, list.getAggregateCacheMisses());
+		assertEquals(1, list.getAggregateCacheHits());
+	}
+
+	@Test
+	public void test_getAggregatePoll_changedByCaller_cacheUnchanged() {
+		PollList list = new PollList(5, 338);
+		list.addPoll(pollWith("S", new Party("Gamma", 40, 0.4f)));
+		String[] names = {"Gamma"};
+		String bySeats = list.getAggregateVisualizationBySeats(names);
+		Poll first = list.getAggregatePoll(names);
+		first.getParty("Gamma").setProjectedNumberOfSeats(300);
+		first.addParty(new Party("Delta", 10, 0.1f));
+
+		Poll second = list.getAggregatePoll(names);
+		assertNotSame(first, second);
+		assertEquals("Both calls after the visualization are cache hits", 2, list.getAggregateCacheHits());
+		assertEquals(40, second.getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertNull(second.getParty("Delta"));
+		assertEquals(bySeats, list.getAggregateVisualizationBySeats(names));
+		assertEquals(bySeats, second.textVisualizationBySeats(list.MAX_STARS_FOR_VISUALIZATION, list.getNumOfSeatsPerStar()));
+	}
+
+	@Test
+	public void test_getAggregateVisualizationBySeats_cachedUntilListChanges() {
+		PollList list = new PollList(5, 338);
+		list.addPoll(pollWith("S", new Party("Gamma", 100, 0.4f)));
+		String[] names = {"Gamma"};
+		String bySeats = list.getAggregateVisualizationBySeats(names);
+		assertEquals(list.getAggregatePoll(names).textVisualizationBySeats(list.MAX_STARS_FOR_VISUALIZATION,
+				list.getNumOfSeatsPerStar()), bySeats);
+		assertSame(bySeats, list.getAggregateVisualizationBySeats(names));
+
+		list.addPoll(pollWith("S2", new Party("Gamma", 300, 0.6f)));
+		String afterAdd = list.getAggregateVisualizationBySeats(names);
+		assertNotEquals("Drawn again for the new average", bySeats, afterAdd);
+		assertTrue(afterAdd.contains("200.0 seats"));
+
+		String byVotes = list.getAggregateVisualizationByVotes(names);
+		list.MAX_STARS_FOR_VISUALIZATION = 30;
+		assertNotEquals("Drawn again for the new number of stars", byVotes, list.getAggregateVisualizationByVotes(names));
+	}
+
+	// Testing the weighted and decayed averages against sums worked out by hand
+	@Test
+	public void test_getWeightedAveragePartyData_handComputed() {
+		PollList list = new PollList(5, 338);
+		Poll small = pollWith("Small", new Party("Gamma", 100, 0.3f));
+		small.setSampleSize(1000);
+		Poll large = pollWith("Large", new Party("Gamma", 200, 0.5f));
+		large.setSampleSize(3000);
+		list.addPoll(small);
+		list.addPoll(large);
+		list.addPoll(pollWith("No Sample", new Party("Gamma", 999, 0.9f)));
+
+		//(100 * 1000 + 200 * 3000) / 4000 and (0.3 * 1000 + 0.5 * 3000) / 4000, the poll without a sample size left out
+		assertEquals(175, list.getWeightedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(0.45f, list.getWeightedAveragePartyData("Gamma").getProjectedPercentageOfVotes(), DELTA);
+		assertEquals(175, list.getWeightedAggregatePoll(new String[] {"Gamma"}).getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		list.removePoll("Large");
+		assertEquals(100, list.getWeightedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_getDecayedAveragePartyData_handComputed() {
+		PollList list = new PollList(5, 338);
+		list.setDecayHalfLife(10);
+		Poll newer = pollWith("Newer", new Party("Gamma", 200, 0.5f));
+		newer.setFieldworkDate(LocalDate.of(2021, 9, 11));
+		Poll older = pollWith("Older", new Party("Gamma", 100, 0.3f));
+		older.setFieldworkDate(LocalDate.of(2021, 9, 1));
+		//The older poll is added second, so it is weighted from a newest date already seen
+		list.addPoll(newer);
+		list.addPoll(older);
+		list.addPoll(pollWith("Undated", new Party("Gamma", 999, 0.9f)));
+
+		//Ten days old is one half-life: (100 * 0.5 + 200 * 1) / 1.5 and (0.3 * 0.5 + 0.5 * 1) / 1.5
+		assertEquals(250 / 1.5f, list.getDecayedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(0.65f / 1.5f, list.getDecayedAveragePartyData("Gamma").getProjectedPercentageOfVotes(), DELTA);
+
+		//A newer poll moves the newest date on: (100 * 0.25 + 200 * 0.5 + 50 * 1) / 1.75
+		Poll newest = pollWith("Newest", new Party("Gamma", 50, 0.2f));
+		newest.setFieldworkDate(LocalDate.of(2021, 9, 21));
+		list.addPoll(newest);
+		assertEquals(100, list.getDecayedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+		assertEquals(0.3f, list.getDecayedAveragePartyData("Gamma").getProjectedPercentageOfVotes(), DELTA);
+		assertEquals(100, list.getDecayedAggregatePoll(new String[] {"Gamma"}).getParty("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		list.removePoll("Newest");
+		assertEquals(250 / 1.5f, list.getDecayedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+
+		//With a 20 day half-life the older poll is half a half-life old: (100 * 2^-0.5 + 200) / (2^-0.5 + 1)
+		list.setDecayHalfLife(20);
+		double olderWeight = Math.pow(2, -0.5);
+		assertEquals((100 * olderWeight + 200) / (olderWeight + 1),
+				list.getDecayedAveragePartyData("Gamma").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	// Testing rolling aggregates against adding up each window again
+	@Test
+	public void test_forEachRollingAggregate_sameAsEachWindow() {
+		Factory factory = new Factory(338, 11);
+		PollList list = factory.createRandomPollList(300);
+		String[] partyNames = factory.getPartyNames();
+		Poll[] polls = list.toArray();
+		List<Poll> series = new ArrayList<Poll>();
+		list.forEachRollingAggregate(partyNames, 25, series::add);
+
+		assertEquals("One aggregate for each poll", polls.length, series.size());
+		for (int last = 0; last < polls.length; last++) {
+			PollList window = new PollList(25, 338);
+			for (int i = Math.max(0, last - 24); i <= last; i++) {
+				window.addPoll(polls[i]);
+			}
+			assertEquals("Aggregate to " + polls[last].getPollName(), series.get(last).getPollName());
+			assertSameAverages("Window " + last, window.getAggregatePoll(partyNames), series.get(last), partyNames);
+		}
+	}
+
+	@Test
+	public void test_forEachRollingAggregateByDays_sameAsEachWindow() {
+		Factory factory = new Factory(338, 12);
+		PollList list = new PollList(100, 338);
+		String[] partyNames = factory.getPartyNames();
+		LocalDate start = LocalDate.of(2021, 8, 15);
+		//Added out of date order, with several polls on some days and one poll without a date
+		for (int i = 0; i < 100; i++) {
+			Poll poll = factory.createRandomPoll("Poll" + i);
+			poll.setFieldworkDate(start.plusDays((i * 37) % 60));
+			list.addPoll(poll);
+		}
+		list.addPoll(factory.createRandomPoll("Undated"));
+
+		List<Poll> series = new ArrayList<Poll>();
+		list.forEachRollingAggregateByDays(partyNames, 7, series::add);
+
+		assertEquals("One aggregate for each date", 60, series.size());
+		for (Poll aggregate : series) {
+			LocalDate day = aggregate.getFieldworkDate();
+			PollList window = new PollList(100, 338);
+			for (Poll poll : list.toArray()) {
+				LocalDate date = poll.getFieldworkDate();
+				if (date != null && date.isAfter(day.minusDays(7)) && !date.isAfter(day)) {
+					window.addPoll(poll);
+				}
+			}
+			assertEquals("Aggregate to " + day, aggregate.getPollName());
+			assertSameAverages("Window to " + day, window.getAggregatePoll(partyNames), aggregate, partyNames);
+		}
+	}
+
+	@Test
+	public void test_getRollingAggregates_drawnAsList() {
+		PollList list = new PollList(3, 100);
+		for (int i = 0; i < 3; i++) {
+			Poll poll = new Poll("Poll" + i, 1);
+			poll.addParty(new Party("A", 10 * (i + 1), 0.1f * (i + 1)));
+			list.addPoll(poll);
+		}
+
+		PollList series = list.getRollingAggregates(new String[] {"A"}, 2);
+		assertEquals(3, series.getNumOfPolls());
+		assertEquals("Window of the last two polls", 25, series.getPoll("Aggregate to Poll2").getParty("A").getProjectedNumberOfSeats(), DELTA);
+		assertTrue(series.textVisualizationBySeats().contains("Aggregate to Poll1"));
+	}
+}
@@ -0,0 +1,93 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes the text visualization of a PollList straight to a Writer or OutputStream one poll at a time,
+ * instead of building the visualization of the whole list as one String first. Only the block for the
+ * poll being written is held in memory, so memory use stays the same however many polls there are.
+ * <p>
+ * Output is buffered. The writer can also flush after every poll, so each poll shows up as soon as it is written.
+ */
+public class PollListWriter {
+	//Instance variables
+	private Writer out;
+	private boolean flushEachPoll;
+	//Holds the visualization of one poll, reused for every poll written
+	private StringBuilder block = new StringBuilder();
+
+	/**
+	 * Creates a PollListWriter that writes to the given Writer through a buffer.
+	 * @param out The Writer to write the visualizations to
+	 * @param flushEachPoll True to flush the output after every poll
+	 */
+	public PollListWriter(Writer out, boolean flushEachPoll) {
+		this.out = (out instanceof BufferedWriter) ? out : new BufferedWriter(out);
+		this.flushEachPoll = flushEachPoll;
+	}
+
+	/**
+	 * Creates a PollListWriter that writes to the given OutputStream through a buffer, using the default charset.
+	 * @param out The OutputStream to write the visualizations to
+	 * @param flushEachPoll True to flush the output after every poll
+	 */
+	public PollListWriter(OutputStream out, boolean flushEachPoll) {
+		this(new OutputStreamWriter(out), flushEachPoll);
+	}
+
+	/**
+	 * Writes the same text as PollList.textVisualizationBySeats or PollList.textVisualizationByVotes, one poll
+	 * at a time, and flushes the output once all polls are written.
+	 * @param polls The PollList to write
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes
+	 * @throws IOException If the output can't be written to
+	 */
+	public void writeVisualization(PollList polls, boolean useSeats) throws IOException {
+		int maxStars = polls.MAX_STARS_FOR_VISUALIZATION;
+		double valuePerStar = useSeats ? polls.getNumOfSeatsPerStar() : polls.getPercentOfVotesPerStar();
+		int slots = polls.getSlotCount();
+
+		for (int i = 0; i < slots; i++) {
+			Poll poll = polls.getPollAt(i);
+			if (poll != null) {
+				block.setLength(0);
+				poll.appendVisualization(block, maxStars, valuePerStar, useSeats);
+				block.append('\n');
+				out.append(block);
+
+				if (flushEachPoll) {
+					out.flush();
+				}
+			}
+		}
+
+		out.flush();
+	}
+
+	/**
+	 * Writes a line separator and flushes the output.
+	 * @throws IOException If the output can't be written to
+	 */
+	public void newLine() throws IOException {
+		out.write(System.lineSeparator());
+		out.flush();
+	}
+
+	/**
+	 * Flushes any buffered output.
+	 * @throws IOException If the output can't be written to
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Flushes and closes the output. Don't call this when writing to System.out.
+	 * @throws IOException If the output can't be closed
+	 */
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,40 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class PollListWriterTest {
+
+	// Testing that the streamed text is the same as the text built in memory
+	@Test
+	public void test_writeVisualization_sameAsPollListText() throws IOException {
+		PollList list = new Factory(338, 7).createRandomPollList(40);
+		for (int i = 0; i < 40; i += 5) {
+			list.removePoll("Poll" + i);
+		}
+
+		StringWriter bySeats = new StringWriter();
+		new PollListWriter(bySeats, false).writeVisualization(list, true);
+		assertEquals(list.textVisualizationBySeats(), bySeats.toString());
+
+		StringWriter byVotes = new StringWriter();
+		new PollListWriter(byVotes, true).writeVisualization(list, false);
+		assertEquals(list.textVisualizationByVotes(), byVotes.toString());
+	}
+
+	@Test
+	public void test_writeVisualization_toStream_flushed() throws IOException {
+		PollList list = new Factory(338, 8).createRandomPollList(3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PollListWriter writer = new PollListWriter(out, false);
+		writer.writeVisualization(list, true);
+		assertEquals("Everything is written without closing the writer", list.textVisualizationBySeats(), out.toString());
+
+		StringWriter empty = new StringWriter();
+		new PollListWriter(empty, false).writeVisualization(new PollList(1, 338), true);
+		assertEquals("An empty list writes nothing", "", empty.toString());
+	}
+}
@@ -0,0 +1,381 @@
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Compact form of a collection of polls for large data sets. Instead of a Party object for every party in every
+ * poll, the projected seats and votes are kept in float columns, one column per party, indexed by poll number.
+ * Each party name is stored once and given a party id, which is its column number.
+ * <p>
+ * A party that is not in a poll has NaN for its seats and votes in that poll. Colours are only stored for
+ * parties that have one. The averages and visualizations are calculated straight from the columns, with
+ * the parties of each poll shown in party id order.
+ */
+public class PollMatrix {
+	//Instance variables
+	private int numOfSeats;
+	int MAX_STARS_FOR_VISUALIZATION = 18;
+
+	private int numOfPolls;
+	private String[] pollNames;
+
+	private int numOfParties;
+	private String[] partyNames;
+	//Maps the lower case name of each party to its party id
+	private HashMap<String, Integer> partyIds = new HashMap<String, Integer>();
+
+	//Columns indexed by [partyId][poll]
+	private float[][] seatColumns;
+	private float[][] voteColumns;
+	//Colour column of a party is null until a poll gives that party a colour
+	private Color[][] colourColumns;
+
+	/**
+	 * Creates an empty PollMatrix for an election with the given number of seats.
+	 * @param numOfSeats Number of seats available in the election
+	 */
+	public PollMatrix(int numOfSeats) {
+		this.numOfSeats = numOfSeats;
+		pollNames = new String[16];
+		partyNames = new String[8];
+		seatColumns = new float[8][];
+		voteColumns = new float[8][];
+		colourColumns = new Color[8][];
+	}
+
+	/**
+	 * Creates a PollMatrix holding the same polls and parties as a PollList.
+	 * @param list The PollList to copy
+	 * @return New PollMatrix
+	 */
+	public static PollMatrix fromPollList(PollList list) {
+		PollMatrix matrix = new PollMatrix(list.getNumOfSeats());
+		int slots = list.getSlotCount();
+		for (int i = 0; i < slots; i++) {
+			Poll poll = list.getPollAt(i);
+			if (poll != null) {
+				matrix.addPoll(poll);
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Getter methods for the number of seats, polls and parties.
+	 */
+	public int getNumOfSeats() {
+		return numOfSeats;
+	}
+
+	public int getNumOfPolls() {
+		return numOfPolls;
+	}
+
+	public int getNumOfParties() {
+		return numOfParties;
+	}
+
+	/**
+	 * Gives the name of the poll in the given row.
+	 * @param poll Poll number, from 0 to getNumOfPolls() - 1
+	 * @return Name of the poll
+	 */
+	public String getPollName(int poll) {
+		return pollNames[poll];
+	}
+
+	/**
+	 * Gives the stored name of a party.
+	 * @param partyId Party id, from 0 to getNumOfParties() - 1
+	 * @return Name of the party
+	 */
+	public String getPartyName(int partyId) {
+		return partyNames[partyId];
+	}
+
+	/**
+	 * Finds the party id for a party name, ignoring case.
+	 * @param partyName Name of a party
+	 * @return The party id, or -1 if no party has that name
+	 */
+	public int getPartyId(String partyName) {
+		Integer partyId = (partyName == null) ? null : partyIds.get(Poll.nameKey(partyName));
+		return (partyId == null) ? -1 : partyId;
+	}
+
+	/**
+	 * Gives the party id for a party name, adding a new column for the party if it doesn't have one yet.
+	 * The name is stored the way it is first given.
+	 * @param partyName Name of a party
+	 * @return The party id
+	 */
+	public int addPartyName(String partyName) {
+		String key = Poll.nameKey(partyName);
+		Integer partyId = partyIds.get(key);
+		if (partyId != null) {
+			return partyId;
+		}
+
+		if (numOfParties == partyNames.length) {
+			int capacity = numOfParties * 2;
+			partyNames = Arrays.copyOf(partyNames, capacity);
+			seatColumns = Arrays.copyOf(seatColumns, capacity);
+			voteColumns = Arrays.copyOf(voteColumns, capacity);
+			colourColumns = Arrays.copyOf(colourColumns, capacity);
+		}
+
+		partyNames[numOfParties] = partyName;
+		seatColumns[numOfParties] = emptyColumn(pollNames.length);
+		voteColumns[numOfParties] = emptyColumn(pollNames.length);
+		partyIds.put(key, numOfParties);
+		return numOfParties++;
+	}
+
+	/**
+	 * Creates a column in which no poll has the party.
+	 * @param length Length of the column
+	 * @return Column filled with NaN
+	 */
+	private static float[] emptyColumn(int length) {
+		float[] column = new float[length];
+		Arrays.fill(column, Float.NaN);
+		return column;
+	}
+
+	/**
+	 * Adds an empty poll, in which no party has any data yet.
+	 * @param pollName Name of the poll
+	 * @return Poll number of the new poll
+	 */
+	public int addPoll(String pollName) {
+		if (numOfPolls == pollNames.length) {
+			int oldCapacity = pollNames.length;
+			int capacity = oldCapacity * 2;
+			pollNames = Arrays.copyOf(pollNames, capacity);
+
+			for (int partyId = 0; partyId < numOfParties; partyId++) {
+				seatColumns[partyId] = Arrays.copyOf(seatColumns[partyId], capacity);
+				Arrays.fill(seatColumns[partyId], oldCapacity, capacity, Float.NaN);
+				voteColumns[partyId] = Arrays.copyOf(voteColumns[partyId], capacity);
+				Arrays.fill(voteColumns[partyId], oldCapacity, capacity, Float.NaN);
+				if (colourColumns[partyId] != null) {
+					colourColumns[partyId] = Arrays.copyOf(colourColumns[partyId], capacity);
+				}
+			}
+		}
+
+		pollNames[numOfPolls] = pollName;
+		return numOfPolls++;
+	}
+
+	/**
+	 * Adds a poll holding the data of every party in the given Poll.
+	 * @param poll The poll to copy
+	 * @return Poll number of the new poll
+	 */
+	public int addPoll(Poll poll) {
+		int row = addPoll(poll.getPollName());
+		Party[] parties = poll.getParties();
+		int numberOfParties = poll.getNumberOfParties();
+
+		for (int i = 0; i < numberOfParties; i++) {
+			Party party = parties[i];
+			int partyId = addPartyName(party.getName());
+			setPartyData(row, partyId, party.getProjectedNumberOfSeats(), party.getProjectedPercentageOfVotes());
+			if (party.getColour() != null) {
+				setColour(row, partyId, party.getColour());
+			}
+		}
+
+		return row;
+	}
+
+	/**
+	 * Sets the projected seats and votes of a party in a poll. Use NaN for both to take the party out of the poll.
+	 * Only one of them being NaN is not allowed, and leaves the party's data as it was.
+	 * @param poll Poll number
+	 * @param partyId Party id
+	 * @param projectedNumberOfSeats Number of seats the party is expected to win
+	 * @param projectedPercentageOfVotes Percentage of votes (between 0 and 1) the party is expected to win
+	 */
+	public void setPartyData(int poll, int partyId, float projectedNumberOfSeats, float projectedPercentageOfVotes) {
+		if (Float.isNaN(projectedNumberOfSeats) != Float.isNaN(projectedPercentageOfVotes)) {
+			System.out.println("Error: setPartyData was called with an invalid argument: only one of seats and votes is NaN");
+			return;
+		}
+
+		seatColumns[partyId][poll] = projectedNumberOfSeats;
+		voteColumns[partyId][poll] = projectedPercentageOfVotes;
+	}
+
+	/**
+	 * Sets the colour of a party in a poll.
+	 * @param poll Poll number
+	 * @param partyId Party id
+	 * @param colour The colour, or null for no colour
+	 */
+	public void setColour(int poll, int partyId, Color colour) {
+		if (colourColumns[partyId] == null) {
+			if (colour == null) {
+				return;
+			}
+			colourColumns[partyId] = new Color[pollNames.length];
+		}
+		colourColumns[partyId][poll] = colour;
+	}
+
+	/**
+	 * Getter methods for the data of a party in a poll. Seats and votes are NaN when the party is not in the poll.
+	 */
+	public float getSeats(int poll, int partyId) {
+		return seatColumns[partyId][poll];
+	}
+
+	public float getVotes(int poll, int partyId) {
+		return voteColumns[partyId][poll];
+	}
+
+	public Color getColour(int poll, int partyId) {
+		return (colourColumns[partyId] == null) ? null : colourColumns[partyId][poll];
+	}
+
+	/**
+	 * Checks if a party has data in a poll.
+	 * @param poll Poll number
+	 * @param partyId Party id
+	 * @return True if the party is in the poll
+	 */
+	public boolean hasParty(int poll, int partyId) {
+		return !Float.isNaN(seatColumns[partyId][poll]);
+	}
+
+	/**
+	 * Creates a Poll holding the parties of one poll, in party id order.
+	 * @param poll Poll number
+	 * @return New Poll
+	 */
+	public Poll toPoll(int poll) {
+		int partiesInPoll = 0;
+		for (int partyId = 0; partyId < numOfParties; partyId++) {
+			if (hasParty(poll, partyId)) {
+				partiesInPoll++;
+			}
+		}
+
+		Poll result = new Poll(pollNames[poll], partiesInPoll);
+		for (int partyId = 0; partyId < numOfParties; partyId++) {
+			if (hasParty(poll, partyId)) {
+				Party party = new Party(partyNames[partyId], seatColumns[partyId][poll], voteColumns[partyId][poll]);
+				party.setColour(getColour(poll, partyId));
+				result.addParty(party);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a PollList holding every poll in this matrix.
+	 * @return New PollList
+	 */
+	public PollList toPollList() {
+		PollList list = new PollList(Math.max(1, numOfPolls), numOfSeats);
+		for (int poll = 0; poll < numOfPolls; poll++) {
+			list.addPoll(toPoll(poll));
+		}
+		return list;
+	}
+
+	/**
+	 * Creates a new Party holding the average seats and votes of the named party over the polls it is in,
+	 * the same way as PollList.getAveragePartyData. The averages are found by adding up the party's columns.
+	 * @param partyName Name of party
+	 * @return New Party with the average data
+	 */
+	public Party getAveragePartyData(String partyName) {
+		Party average = new Party(partyName);
+		int partyId = getPartyId(partyName);
+		if (partyId < 0) {
+			return average;
+		}
+
+		float[] seats = seatColumns[partyId];
+		float[] votes = voteColumns[partyId];
+		double sumSeats = 0;
+		double sumVotes = 0;
+		int count = 0;
+
+		for (int poll = 0; poll < numOfPolls; poll++) {
+			if (!Float.isNaN(seats[poll])) {
+				sumSeats += seats[poll];
+				sumVotes += votes[poll];
+				count++;
+			}
+		}
+
+		if (count > 0) {
+			average.setProjectedPercentageOfVotes((float) (sumVotes / count));
+			average.setProjectedNumberOfSeats((float) (sumSeats / count));
+		}
+
+		return average;
+	}
+
+	/**
+	 * Creates a poll called Aggregate with the average party data of each named party, in the same order.
+	 * @param partyNames Names of the parties
+	 * @return Poll representing aggregate data of all polls
+	 */
+	public Poll getAggregatePoll(String[] partyNames) {
+		Poll aggregate = new Poll("Aggregate", partyNames.length);
+		for (String partyName : partyNames) {
+			aggregate.addParty(getAveragePartyData(partyName));
+		}
+		return aggregate;
+	}
+
+	/**
+	 * Gives the same kind of text as PollList.textVisualizationBySeats, drawn straight from the columns.
+	 * @return Visualization of polls by seats
+	 */
+	public String textVisualizationBySeats() {
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, true);
+		return textResult.toString();
+	}
+
+	/**
+	 * Gives the same kind of text as PollList.textVisualizationByVotes, drawn straight from the columns.
+	 * @return Visualization of polls by votes
+	 */
+	public String textVisualizationByVotes() {
+		StringBuilder textResult = new StringBuilder();
+		appendVisualization(textResult, false);
+		return textResult.toString();
+	}
+
+	/**
+	 * Appends the visualization of every poll to the end of the given StringBuilder. Each poll is its name
+	 * followed by one line for each party in it, in party id order, then an empty line.
+	 * @param out The StringBuilder to append to
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes
+	 */
+	public void appendVisualization(StringBuilder out, boolean useSeats) {
+		int maxStars = MAX_STARS_FOR_VISUALIZATION;
+		double valuePerStar = useSeats
+				? (int) Math.ceil((float) numOfSeats / maxStars)
+				: (int) Math.ceil(100.0 / maxStars);
+		char[] formatHelper = new char[maxStars + 1];
+
+		for (int poll = 0; poll < numOfPolls; poll++) {
+			out.append(pollNames[poll]).append('\n');
+			for (int partyId = 0; partyId < numOfParties; partyId++) {
+				if (hasParty(poll, partyId)) {
+					Party.appendVisualization(out, formatHelper, maxStars, valuePerStar, useSeats, partyNames[partyId],
+							getColour(poll, partyId), seatColumns[partyId][poll], voteColumns[partyId][poll]);
+					out.append('\n');
+				}
+			}
+			out.append('\n');
+		}
+	}
+}
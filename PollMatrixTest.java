@@ -0,0 +1,98 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PollMatrixTest {
+
+	private static final float DELTA = 0.0001f;
+
+	/**
+	 * Random polls, a few polls with only some of the parties, and removed polls that leave empty slots.
+	 */
+	private static PollList mixedList(String[] partyNames) {
+		Factory factory = new Factory(338, 9);
+		PollList list = factory.createRandomPollList(200);
+		for (int i = 0; i < 5; i++) {
+			Poll partial = new Poll("Partial" + i, 2);
+			partial.addParty(new Party(partyNames[0], 100 + i, 0.3f));
+			partial.addParty(new Party("Matrix Only", i, 0.01f * i));
+			list.addPoll(partial);
+		}
+		for (int i = 0; i < 200; i += 7) {
+			list.removePoll("Poll" + i);
+		}
+		return list;
+	}
+
+	private static String[] namesWithExtra(Factory factory) {
+		String[] partyNames = factory.getPartyNames();
+		String[] names = Arrays.copyOf(partyNames, partyNames.length + 2);
+		names[partyNames.length] = "Matrix Only";
+		names[partyNames.length + 1] = "Not In Any Poll";
+		return names;
+	}
+
+	// Testing that the columns give the same averages as the PollList they came from
+	@Test
+	public void test_fromPollList_sameAveragesAsPollList() {
+		String[] names = namesWithExtra(new Factory(338, 9));
+		PollList list = mixedList(names);
+		PollMatrix matrix = PollMatrix.fromPollList(list);
+
+		assertEquals(list.getNumOfPolls(), matrix.getNumOfPolls());
+		assertEquals(338, matrix.getNumOfSeats());
+		Poll expected = list.getAggregatePoll(names);
+		Poll actual = matrix.getAggregatePoll(names);
+		for (String name : names) {
+			assertEquals("Votes of " + name, expected.getParty(name).getProjectedPercentageOfVotes(),
+					actual.getParty(name).getProjectedPercentageOfVotes(), DELTA);
+			assertEquals("Seats of " + name, expected.getParty(name).getProjectedNumberOfSeats(),
+					actual.getParty(name).getProjectedNumberOfSeats(), DELTA);
+		}
+		assertEquals(2, matrix.getAveragePartyData("MATRIX ONLY").getProjectedNumberOfSeats(), DELTA);
+	}
+
+	@Test
+	public void test_toPollList_roundTrip_sameAverages() {
+		String[] names = namesWithExtra(new Factory(338, 9));
+		PollList list = mixedList(names);
+		PollMatrix matrix = PollMatrix.fromPollList(list);
+		PollList copy = matrix.toPollList();
+
+		assertEquals(list.getNumOfPolls(), copy.getNumOfPolls());
+		assertNull("Partial polls only have their own parties", copy.getPoll("Partial3").getParty(names[1]));
+		for (String name : names) {
+			assertEquals("Seats of " + name, list.getAveragePartyData(name).getProjectedNumberOfSeats(),
+					copy.getAveragePartyData(name).getProjectedNumberOfSeats(), DELTA);
+		}
+		assertEquals("Parties in party id order in both", matrix.textVisualizationBySeats(), copy.textVisualizationBySeats());
+	}
+
+	@Test
+	public void test_setPartyData_onlyOneNaN_rejected() {
+		PollMatrix matrix = new PollMatrix(338);
+		int poll = matrix.addPoll("Half NaN");
+		int partyId = matrix.addPartyName("Matrix Half");
+		matrix.setPartyData(poll, partyId, 10, 0.1f);
+
+		matrix.setPartyData(poll, partyId, 20, Float.NaN);
+		matrix.setPartyData(poll, partyId, Float.NaN, 0.2f);
+		assertTrue(matrix.hasParty(poll, partyId));
+		assertEquals("Data is kept", 10, matrix.getSeats(poll, partyId), 0);
+		assertEquals(0.1f, matrix.getVotes(poll, partyId), 0);
+		assertEquals(0.1f, matrix.getAveragePartyData("Matrix Half").getProjectedPercentageOfVotes(), DELTA);
+
+		matrix.setPartyData(poll, partyId, Float.NaN, Float.NaN);
+		assertFalse("NaN for both takes the party out", matrix.hasParty(poll, partyId));
+		assertEquals(0, matrix.toPoll(poll).getNumberOfParties());
+	}
+
+	@Test
+	public void test_toPollList_empty_keepsSeats() {
+		PollList list = new PollMatrix(338).toPollList();
+		assertEquals(0, list.getNumOfPolls());
+		assertEquals(338, list.getNumOfSeats());
+	}
+}
@@ -0,0 +1,167 @@
+import java.awt.Color;
+import java.time.LocalDate;
+
+/**
+ * The data of a Poll and its parties at one moment, which never changes. Any number of threads can read and
+ * draw a PollSnapshot without locking, while the Poll it was taken from keeps changing.
+ * <p>
+ * A PollList keeps a snapshot of every poll it holds, so the parties' data is kept in one array per field, as
+ * PollMatrix does, instead of in an object per party. PartySnapshots are only created when a party is asked for.
+ */
+public final class PollSnapshot {
+	private final String name;
+	private final int sampleSize;
+	private final LocalDate fieldworkDate;
+	private final String[] partyNames;
+	private final int[] partyIds;
+	private final float[] seats;
+	private final float[] votes;
+	private final Color[] colours;
+
+	/**
+	 * Takes a snapshot of a poll and each of its parties.
+	 * @param poll The poll to copy
+	 */
+	public PollSnapshot(Poll poll) {
+		name = poll.getPollName();
+		sampleSize = poll.getSampleSize();
+		fieldworkDate = poll.getFieldworkDate();
+
+		Party[] parties = poll.getParties();
+		int numOfParties = poll.getNumberOfParties();
+		partyNames = new String[numOfParties];
+		partyIds = new int[numOfParties];
+		seats = new float[numOfParties];
+		votes = new float[numOfParties];
+		colours = new Color[numOfParties];
+		for (int i = 0; i < numOfParties; i++) {
+			partyNames[i] = parties[i].getName();
+			partyIds[i] = parties[i].getId();
+			seats[i] = parties[i].getProjectedNumberOfSeats();
+			votes[i] = parties[i].getProjectedPercentageOfVotes();
+			colours[i] = parties[i].getColour();
+		}
+	}
+
+	/**
+	 * Getter methods for the name, sample size, fieldwork date and number of parties of the poll.
+	 */
+	public String getPollName() {
+		return name;
+	}
+
+	public int getSampleSize() {
+		return sampleSize;
+	}
+
+	public LocalDate getFieldworkDate() {
+		return fieldworkDate;
+	}
+
+	public int getNumberOfParties() {
+		return partyNames.length;
+	}
+
+	/**
+	 * Gives a party by its position in the poll.
+	 * @param index Position of the party, from 0 to getNumberOfParties() - 1
+	 * @return New PartySnapshot of the party at that position
+	 */
+	public PartySnapshot getParty(int index) {
+		return new PartySnapshot(partyNames[index], partyIds[index], seats[index], votes[index], colours[index]);
+	}
+
+	/**
+	 * Finds the party with the given name, ignoring case.
+	 * @param name Name of the party to find
+	 * @return New PartySnapshot of the party, or null if the poll has no party with that name
+	 */
+	public PartySnapshot getParty(String name) {
+		int id = PartyRegistry.findId(name);
+		return (id < 0) ? null : getPartyById(id);
+	}
+
+	/**
+	 * Finds the party with the given PartyRegistry ID.
+	 * @param partyId ID of the party's name
+	 * @return New PartySnapshot of the party, or null if the poll has no party with that ID
+	 */
+	public PartySnapshot getPartyById(int partyId) {
+		for (int i = 0; i < partyIds.length; i++) {
+			if (partyIds[i] == partyId) {
+				return getParty(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a new Poll with the same data, which can be changed without affecting this snapshot.
+	 * @return New Poll
+	 */
+	public Poll toPoll() {
+		Poll poll = new Poll(name, Math.max(1, partyNames.length));
+		poll.setSampleSize(sampleSize);
+		poll.setFieldworkDate(fieldworkDate);
+		for (int i = 0; i < partyNames.length; i++) {
+			poll.addParty(getParty(i).toParty());
+		}
+		return poll;
+	}
+
+	/**
+	 * Gives the same text as Poll.toString.
+	 * @return The poll name followed by the name of each party, one per line
+	 */
+	public String toString() {
+		StringBuilder whole = new StringBuilder().append(name).append('\n');
+		for (String partyName : partyNames) {
+			whole.append(partyName).append('\n');
+		}
+		return whole.toString();
+	}
+
+	/**
+	 * Gives the same text as Poll.textVisualizationBySeats.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param numOfSeatsPerStar The number of seats represented by one star.
+	 * @return Visualization of the poll by seats
+	 */
+	public String textVisualizationBySeats(int maxStars, double numOfSeatsPerStar) {
+		StringBuilder whole = new StringBuilder();
+		appendVisualization(whole, maxStars, numOfSeatsPerStar, true);
+		return whole.toString();
+	}
+
+	/**
+	 * Gives the same text as Poll.textVisualizationByVotes.
+	 * @param maxStars The total number of stars that can be won.
+	 * @param percentOfVotesPerStar The percentage of votes represented by one star.
+	 * @return Visualization of the poll by votes
+	 */
+	public String textVisualizationByVotes(int maxStars, double percentOfVotesPerStar) {
+		StringBuilder whole = new StringBuilder();
+		appendVisualization(whole, maxStars, percentOfVotesPerStar, false);
+		return whole.toString();
+	}
+
+	/**
+	 * Appends the same text as Poll.appendVisualization to the end of the given StringBuilder.
+	 * @param out The StringBuilder to append to
+	 * @param maxStars The total number of stars that can be won.
+	 * @param valuePerStar The number of seats/votes represented by one star.
+	 * @param useSeats True for a visualization by seats, false for a visualization by votes
+	 */
+	public void appendVisualization(StringBuilder out, int maxStars, double valuePerStar, boolean useSeats) {
+		appendVisualization(out, new char[maxStars + 1], maxStars, valuePerStar, useSeats);
+	}
+
+	void appendVisualization(StringBuilder out, char[] formatHelper, int maxStars, double valuePerStar, boolean useSeats) {
+		out.append(name).append('\n');
+		for (int i = 0; i < partyNames.length; i++) {
+			Party.appendVisualization(out, formatHelper, maxStars, valuePerStar, useSeats, partyNames[i], colours[i],
+					seats[i], votes[i]);
+			out.append('\n');
+		}
+	}
+}
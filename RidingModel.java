@@ -0,0 +1,302 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Projects seats riding by riding under first past the post, instead of splitting the seats in proportion to the
+ * national vote. The model holds each party's share of the votes in every riding at a baseline election, such as
+ * the last general election. A poll is projected with uniform swing: the change in each party's national share
+ * since the baseline is added to its share in every riding, and the party with the highest share wins the riding.
+ * The ridings each party wins add up to its projected seats.
+ * <p>
+ * The baseline shares are kept in one flat array, riding by riding, and the parties are matched to the parties of
+ * a poll by PartyRegistry ID. Ridings are projected in parallel on the common ForkJoinPool in blocks, each block
+ * counting the ridings won in every poll in its own array. Those arrays and the swings are kept between
+ * projections and only made bigger when more polls are projected, so projecting again allocates nothing. Because
+ * of that, one model only projects for one thread at a time.
+ */
+public class RidingModel {
+	//Instance variables
+	private String[] partyNames;
+	private int[] partyIds;
+	private String[] ridingNames;
+	private int numOfParties;
+	private int numOfRidings;
+	//Share of the votes of party p in riding r is at baselineShares[r * numOfParties + p]
+	private double[] baselineShares;
+	//Average share of each party over the ridings, which swings are measured from
+	private double[] nationalShares;
+
+	//Buffers kept between projections: swing of party p in poll k is at swings[k * numOfParties + p], and
+	//blockWins[block][k * numOfParties + p] is the number of ridings in the block party p wins in poll k
+	private double[] swings = new double[0];
+	private int[][] blockWins = new int[0][0];
+	private int[] seats = new int[0];
+
+	/**
+	 * Creates a model from the result of the baseline election in every riding. A riding missing a share of a
+	 * party is taken to have given it no votes.
+	 * @param partyNames Names of the parties in the election
+	 * @param ridingNames Name of each riding, or null to number the ridings
+	 * @param baselineShares Share of the votes of each party in each riding (between 0 and 1), one row per riding
+	 *        with the parties in the same order as partyNames
+	 */
+	public RidingModel(String[] partyNames, String[] ridingNames, double[][] baselineShares) {
+		this.partyNames = partyNames.clone();
+		numOfParties = partyNames.length;
+		numOfRidings = baselineShares.length;
+		partyIds = new int[numOfParties];
+		for (int party = 0; party < numOfParties; party++) {
+			partyIds[party] = PartyRegistry.idOf(partyNames[party]);
+		}
+
+		this.ridingNames = new String[numOfRidings];
+		this.baselineShares = new double[numOfRidings * numOfParties];
+		nationalShares = new double[numOfParties];
+		for (int riding = 0; riding < numOfRidings; riding++) {
+			boolean named = ridingNames != null && riding < ridingNames.length && ridingNames[riding] != null;
+			this.ridingNames[riding] = named ? ridingNames[riding] : "Riding " + (riding + 1);
+
+			double[] row = baselineShares[riding];
+			for (int party = 0; party < numOfParties; party++) {
+				double share = (row != null && party < row.length) ? Math.max(0, row[party]) : 0;
+				this.baselineShares[riding * numOfParties + party] = share;
+				nationalShares[party] += share;
+			}
+		}
+
+		for (int party = 0; party < numOfParties; party++) {
+			nationalShares[party] = (numOfRidings == 0) ? 0 : nationalShares[party] / numOfRidings;
+		}
+	}
+
+	/**
+	 * Getter methods: getNumOfRidings returns the number of ridings, which is the number of seats projected
+	 * getPartyNames returns a copy of the names of the parties in the model
+	 * getRidingName returns the name of a riding, or null if there is no such riding
+	 * getNationalBaseline returns the average share of a party over the ridings at the baseline election, or 0 if
+	 * the party isn't in the model
+	 */
+	public int getNumOfRidings() {
+		return numOfRidings;
+	}
+
+	public String[] getPartyNames() {
+		return partyNames.clone();
+	}
+
+	public String getRidingName(int riding) {
+		return (riding < 0 || riding >= numOfRidings) ? null : ridingNames[riding];
+	}
+
+	public double getNationalBaseline(String partyName) {
+		int party = indexOf(PartyRegistry.findId(partyName));
+		return (party < 0) ? 0 : nationalShares[party];
+	}
+
+	/**
+	 * Finds the position of a party in the model.
+	 * @param partyId PartyRegistry ID of the party
+	 * @return Position of the party, or -1 if it isn't in the model
+	 */
+	private int indexOf(int partyId) {
+		for (int party = 0; party < numOfParties; party++) {
+			if (partyIds[party] == partyId) {
+				return party;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Projects the number of ridings each party wins from the votes in a poll. The poll is not changed.
+	 * @param poll The poll to project
+	 * @return Number of ridings won by each party, in the same order as getPartyNames
+	 */
+	public synchronized int[] project(Poll poll) {
+		if (poll == null) {
+			System.out.println("Error: Null as argument");
+			return new int[numOfParties];
+		}
+
+		projectAll(new Poll[] {poll}, 1);
+		return Arrays.copyOf(seats, numOfParties);
+	}
+
+	/**
+	 * Finds the party that wins a riding with the votes in a poll.
+	 * @param poll The poll to project
+	 * @param riding Position of the riding, between 0 and getNumOfRidings() - 1
+	 * @return Name of the winning party, or null if the riding doesn't exist or the model has no parties
+	 */
+	public synchronized String getWinner(Poll poll, int riding) {
+		if (poll == null) {
+			System.out.println("Error: Null as argument");
+			return null;
+		}
+		if (riding < 0 || riding >= numOfRidings || numOfParties == 0) {
+			return null;
+		}
+
+		computeSwings(new Poll[] {poll}, 1);
+		return partyNames[winnerOf(riding, 0)];
+	}
+
+	/**
+	 * Sets the projected seats of every party in the given polls to the number of ridings it wins. Parties of a
+	 * poll that aren't in the model win no ridings. A PollList holding the polls is told about every party
+	 * changed, unless it stops the polls telling it, as PollList.projectRidingSeats does.
+	 * @param polls Array of polls, empty slots are null and skipped
+	 * @param size Number of slots of the array to project
+	 */
+	synchronized void applyTo(Poll[] polls, int size) {
+		projectAll(polls, size);
+		for (int slot = 0; slot < size; slot++) {
+			Poll poll = polls[slot];
+			if (poll == null) {
+				continue;
+			}
+
+			Party[] parties = poll.getParties();
+			for (int index = 0; index < poll.getNumberOfParties(); index++) {
+				parties[index].setProjectedNumberOfSeats(0);
+			}
+			for (int party = 0; party < numOfParties; party++) {
+				Party found = poll.getPartyById(partyIds[party]);
+				if (found != null) {
+					found.setProjectedNumberOfSeats(seats[slot * numOfParties + party]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Projects every riding for the given polls, leaving the number of ridings party p wins in poll k at
+	 * seats[k * numOfParties + p].
+	 * @param polls Array of polls, empty slots are null
+	 * @param size Number of slots of the array to project
+	 */
+	private void projectAll(Poll[] polls, int size) {
+		computeSwings(polls, size);
+		int length = size * numOfParties;
+		if (seats.length < length) {
+			seats = new int[length];
+		}
+		Arrays.fill(seats, 0, length, 0);
+		if (numOfRidings == 0 || numOfParties == 0) {
+			return;
+		}
+
+		//Give each thread a few blocks, so the ridings are shared out evenly without a count array for every riding
+		int numOfBlocks = Math.min(numOfRidings, 4 * ForkJoinPool.getCommonPoolParallelism());
+		if (blockWins.length != numOfBlocks || blockWins[0].length < length) {
+			blockWins = new int[numOfBlocks][length];
+		}
+		ForkJoinPool.commonPool().invoke(new ProjectBlocks(this, size, numOfBlocks, 0, numOfBlocks));
+
+		for (int[] wins : blockWins) {
+			for (int index = 0; index < length; index++) {
+				seats[index] += wins[index];
+			}
+		}
+	}
+
+	/**
+	 * Works out the swing of every party in every poll from the baseline. A party missing from a poll, and
+	 * every party of an empty slot, is taken to have no swing.
+	 * @param polls Array of polls, empty slots are null
+	 * @param size Number of slots of the array to work out
+	 */
+	private void computeSwings(Poll[] polls, int size) {
+		int length = size * numOfParties;
+		if (swings.length < length) {
+			swings = new double[length];
+		}
+
+		for (int slot = 0; slot < size; slot++) {
+			Poll poll = polls[slot];
+			for (int party = 0; party < numOfParties; party++) {
+				Party found = (poll == null) ? null : poll.getPartyById(partyIds[party]);
+				swings[slot * numOfParties + party] = (found == null)
+						? 0 : found.getProjectedPercentageOfVotes() - nationalShares[party];
+			}
+		}
+	}
+
+	/**
+	 * Finds the party with the highest share of the votes in a riding after a poll's swing. Ties go to the party
+	 * given first, and a share that would fall below 0 only changes which party is highest when every share does,
+	 * so shares aren't cut off at 0.
+	 * @param riding Position of the riding
+	 * @param slot Slot of the poll in the swings array
+	 * @return Position of the winning party
+	 */
+	private int winnerOf(int riding, int slot) {
+		int shareBase = riding * numOfParties;
+		int swingBase = slot * numOfParties;
+		int winner = 0;
+		double highest = baselineShares[shareBase] + swings[swingBase];
+		for (int party = 1; party < numOfParties; party++) {
+			double share = baselineShares[shareBase + party] + swings[swingBase + party];
+			if (share > highest) {
+				highest = share;
+				winner = party;
+			}
+		}
+		return winner;
+	}
+
+	/**
+	 * Counts the ridings of one block won by each party in every poll.
+	 * @param block The block to project
+	 * @param numOfBlocks Number of blocks the ridings are split into
+	 * @param size Number of poll slots
+	 */
+	private void projectBlock(int block, int numOfBlocks, int size) {
+		int[] wins = blockWins[block];
+		Arrays.fill(wins, 0, size * numOfParties, 0);
+		int fromRiding = (int) ((long) numOfRidings * block / numOfBlocks);
+		int toRiding = (int) ((long) numOfRidings * (block + 1) / numOfBlocks);
+
+		for (int slot = 0; slot < size; slot++) {
+			int winsBase = slot * numOfParties;
+			for (int riding = fromRiding; riding < toRiding; riding++) {
+				wins[winsBase + winnerOf(riding, slot)]++;
+			}
+		}
+	}
+
+	/**
+	 * Fork-join task that projects a range of blocks of ridings, splitting the range in half until each task
+	 * has one block. Every block counts into its own array, so the tasks share nothing they write to.
+	 */
+	private static class ProjectBlocks extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private RidingModel model;
+		private int size;
+		private int numOfBlocks;
+		private int fromBlock;
+		private int toBlock;
+
+		ProjectBlocks(RidingModel model, int size, int numOfBlocks, int fromBlock, int toBlock) {
+			this.model = model;
+			this.size = size;
+			this.numOfBlocks = numOfBlocks;
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+		}
+
+		@Override
+		protected void compute() {
+			if (toBlock - fromBlock == 1) {
+				model.projectBlock(fromBlock, numOfBlocks, size);
+				return;
+			}
+
+			int middle = (fromBlock + toBlock) >>> 1;
+			invokeAll(new ProjectBlocks(model, size, numOfBlocks, fromBlock, middle),
+					new ProjectBlocks(model, size, numOfBlocks, middle, toBlock));
+		}
+	}
+}
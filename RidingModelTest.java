@@ -0,0 +1,64 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RidingModelTest {
+
+	private static final String[] PARTIES = {"A", "B"};
+	//National baseline is 0.52 for A and 0.48 for B
+	private static final double[][] SHARES = {{0.60, 0.40}, {0.45, 0.55}, {0.51, 0.49}};
+
+	private static Poll pollWith(String name, float votesA, float votesB) {
+		Poll poll = new Poll(name, 2);
+		poll.addParty(new Party("A", 0, votesA));
+		poll.addParty(new Party("B", 0, votesB));
+		return poll;
+	}
+
+	// Testing uniform swing on a small model
+	@Test
+	public void test_project_noSwing_baselineWinners() {
+		RidingModel model = new RidingModel(PARTIES, null, SHARES);
+		assertEquals(0.52, model.getNationalBaseline("a"), 0.000001);
+		assertArrayEquals(new int[] {2, 1}, model.project(pollWith("Even", 0.52f, 0.48f)));
+	}
+
+	@Test
+	public void test_project_swings_winnersChange() {
+		RidingModel model = new RidingModel(PARTIES, new String[] {"North", "South", "East"}, SHARES);
+		assertArrayEquals("A gains 6 points and takes South", new int[] {3, 0}, model.project(pollWith("Up", 0.58f, 0.42f)));
+		assertArrayEquals("A loses 3 points and loses East", new int[] {1, 2}, model.project(pollWith("Down", 0.49f, 0.51f)));
+		assertEquals("B", model.getWinner(pollWith("Down", 0.49f, 0.51f), 2));
+		assertEquals("East", model.getRidingName(2));
+	}
+
+	// Testing a whole PollList
+	@Test
+	public void test_projectRidingSeats_pollList_sameAsEachPoll() {
+		Factory factory = new Factory(338, 7);
+		PollList list = factory.createRandomPollList(500);
+		RidingModel model = factory.createRandomRidingModel();
+		list.setRidingModel(model);
+		list.projectRidingSeats();
+
+		String[] partyNames = model.getPartyNames();
+		for (Poll poll : list.toArray()) {
+			int[] expected = model.project(poll);
+			float totalSeats = 0;
+			for (int party = 0; party < partyNames.length; party++) {
+				assertEquals("Ridings won in " + poll.getPollName(), expected[party],
+						poll.getParty(partyNames[party]).getProjectedNumberOfSeats(), 0.0001);
+				totalSeats += expected[party];
+			}
+			assertEquals("Every riding is won by one party", 338, totalSeats, 0.0001);
+		}
+		assertEquals("Snapshot sees the new seats", list.textVisualizationBySeats(), list.snapshot().textVisualizationBySeats());
+	}
+
+	@Test
+	public void test_setRidingModel_wrongNumberOfRidings_notSet() {
+		PollList list = new PollList(5, 338);
+		list.setRidingModel(new RidingModel(PARTIES, null, SHARES));
+		assertNull(list.getRidingModel());
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Works out how many seats each party wins from its share of the votes, so a party's projected seats can come
+ * from its projected percentage of votes instead of being made up separately.
+ * <p>
+ * Allocators work on primitive arrays and are given a Workspace to work in, so allocating the seats of many polls,
+ * or of many simulated elections, doesn't create any objects once the workspace is big enough. The allocators
+ * here keep no state, so one allocator can be used by any number of threads at once, each with its own workspace.
+ */
+public interface SeatAllocator {
+	/**
+	 * The D'Hondt highest averages method, dividing each party's votes by 1, 2, 3, ... It favours larger parties.
+	 */
+	SeatAllocator D_HONDT = new HighestAveragesAllocator(1);
+
+	/**
+	 * The Sainte-Lague highest averages method, dividing each party's votes by 1, 3, 5, ...
+	 */
+	SeatAllocator SAINTE_LAGUE = new HighestAveragesAllocator(2);
+
+	/**
+	 * The largest remainder method with the Hare quota: each party gets the whole part of its share of the seats,
+	 * and the seats left over go to the parties with the largest fractions left.
+	 */
+	SeatAllocator LARGEST_REMAINDER = new LargestRemainderAllocator();
+
+	/**
+	 * Splits the seats between the parties in proportion to their votes. When no party has any votes, no party
+	 * gets any seats. Parties with equal claims to a seat are ranked in the order they are given.
+	 * @param votes Votes of each party, none below 0
+	 * @param numOfParties Number of parties, the entries of the arrays after these are ignored
+	 * @param numOfSeats Number of seats to split, at least 0
+	 * @param seats Array the seats of each party are put in
+	 * @param work Workspace to work in, made bigger if it has less room than numOfParties
+	 */
+	void allocate(double[] votes, int numOfParties, int numOfSeats, int[] seats, Workspace work);
+
+	/**
+	 * Splits the seats between the parties in proportion to their votes, creating the arrays needed.
+	 * @param votes Votes of each party, none below 0
+	 * @param numOfSeats Number of seats to split, at least 0
+	 * @return The seats of each party, in the same order as the votes
+	 */
+	default int[] allocate(double[] votes, int numOfSeats) {
+		int[] seats = new int[votes.length];
+		allocate(votes, votes.length, numOfSeats, seats, new Workspace(votes.length));
+		return seats;
+	}
+
+	/**
+	 * Sets the projected seats of every party in the poll from its projected percentage of votes. If the poll is
+	 * in a PollList, PollList.recomputeAggregates must be called afterwards, as for any other change to its parties.
+	 * @param poll The poll whose parties get seats
+	 * @param numOfSeats Number of seats in the election, at least 0
+	 */
+	default void allocate(Poll poll, int numOfSeats) {
+		int numOfParties = poll.getNumberOfParties();
+		allocate(poll, numOfSeats, new double[numOfParties], new int[numOfParties], new Workspace(numOfParties));
+	}
+
+	/**
+	 * Sets the projected seats of every party in the poll, using the given arrays to work in.
+	 * @param poll The poll whose parties get seats
+	 * @param numOfSeats Number of seats in the election, at least 0
+	 * @param votes Array with room for at least one entry per party in the poll
+	 * @param seats Array with room for at least one entry per party in the poll
+	 * @param work Workspace to work in
+	 */
+	default void allocate(Poll poll, int numOfSeats, double[] votes, int[] seats, Workspace work) {
+		Party[] parties = poll.getParties();
+		int numOfParties = poll.getNumberOfParties();
+		for (int party = 0; party < numOfParties; party++) {
+			votes[party] = parties[party].getProjectedPercentageOfVotes();
+		}
+
+		allocate(votes, numOfParties, numOfSeats, seats, work);
+		for (int party = 0; party < numOfParties; party++) {
+			parties[party].setProjectedNumberOfSeats(seats[party]);
+		}
+	}
+
+	/**
+	 * Arrays a seat allocator works in: an order of the parties and a number for each party, such as its current
+	 * average or remainder. A workspace should only be used by one thread at a time.
+	 */
+	final class Workspace {
+		int[] order;
+		double[] keys;
+
+		/**
+		 * Creates a workspace with room for the given number of parties.
+		 * @param numOfParties Number of parties, it grows if more are allocated
+		 */
+		public Workspace(int numOfParties) {
+			order = new int[numOfParties];
+			keys = new double[numOfParties];
+		}
+
+		/**
+		 * Makes sure there is room for the given number of parties.
+		 * @param numOfParties Number of parties
+		 */
+		void ensureCapacity(int numOfParties) {
+			if (order.length < numOfParties) {
+				order = new int[numOfParties];
+				keys = new double[numOfParties];
+			}
+		}
+	}
+}
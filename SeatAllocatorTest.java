@@ -0,0 +1,116 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SeatAllocatorTest {
+
+	private static final double[] VOTES = {100000, 80000, 30000, 20000};
+
+	// Testing each method against a worked example
+	@Test
+	public void test_dHondt_workedExample() {
+		assertArrayEquals(new int[] {4, 3, 1, 0}, SeatAllocator.D_HONDT.allocate(VOTES, 8));
+	}
+
+	@Test
+	public void test_sainteLague_workedExample() {
+		assertArrayEquals(new int[] {3, 3, 1, 1}, SeatAllocator.SAINTE_LAGUE.allocate(VOTES, 8));
+	}
+
+	@Test
+	public void test_largestRemainder_workedExample() {
+		assertArrayEquals(new int[] {3, 3, 1, 1}, SeatAllocator.LARGEST_REMAINDER.allocate(VOTES, 8));
+	}
+
+	@Test
+	public void test_dHondt_tiedAverages_firstPartyWins() {
+		assertArrayEquals("Equal claims go to the party given first", new int[] {1, 0},
+				SeatAllocator.D_HONDT.allocate(new double[] {0.4, 0.4}, 1));
+	}
+
+	@Test
+	public void test_allMethods_noVotes_noSeats() {
+		double[] votes = {0, 0, 0};
+		assertArrayEquals(new int[] {0, 0, 0}, SeatAllocator.D_HONDT.allocate(votes, 10));
+		assertArrayEquals(new int[] {0, 0, 0}, SeatAllocator.SAINTE_LAGUE.allocate(votes, 10));
+		assertArrayEquals(new int[] {0, 0, 0}, SeatAllocator.LARGEST_REMAINDER.allocate(votes, 10));
+	}
+
+	// Testing against handing out every seat one at a time
+	@Test
+	public void test_highestAverages_randomVotes_sameAsSeatBySeat() {
+		Random random = new Random(22);
+		for (int round = 0; round < 2000; round++) {
+			double[] votes = new double[1 + random.nextInt(8)];
+			for (int i = 0; i < votes.length; i++) {
+				//Small whole numbers in half the rounds, so many averages are tied
+				votes[i] = (round % 2 == 0) ? random.nextInt(6) : random.nextDouble();
+			}
+			int numOfSeats = random.nextInt(60);
+
+			assertArrayEquals("D'Hondt, round " + round, seatBySeat(votes, numOfSeats, 1),
+					SeatAllocator.D_HONDT.allocate(votes, numOfSeats));
+			assertArrayEquals("Sainte-Lague, round " + round, seatBySeat(votes, numOfSeats, 2),
+					SeatAllocator.SAINTE_LAGUE.allocate(votes, numOfSeats));
+		}
+	}
+
+	/**
+	 * Gives each seat to the party with the highest average, or the first of the tied parties, checking
+	 * every party for every seat.
+	 */
+	private static int[] seatBySeat(double[] votes, int numOfSeats, int divisorStep) {
+		int[] seats = new int[votes.length];
+		double totalVotes = 0;
+		for (double partyVotes : votes) {
+			totalVotes += partyVotes;
+		}
+		if (totalVotes <= 0) {
+			return seats;
+		}
+
+		for (int seat = 0; seat < numOfSeats; seat++) {
+			int best = 0;
+			for (int party = 1; party < votes.length; party++) {
+				if (votes[party] / (divisorStep * seats[party] + 1) > votes[best] / (divisorStep * seats[best] + 1)) {
+					best = party;
+				}
+			}
+			seats[best]++;
+		}
+		return seats;
+	}
+
+	// Testing a whole PollList
+	@Test
+	public void test_allocateSeats_pollList_seatsFollowVotes() {
+		Factory factory = new Factory(338, 6);
+		PollList list = factory.createRandomPollList(200);
+		list.allocateSeats(SeatAllocator.D_HONDT);
+
+		for (Poll poll : list.toArray()) {
+			double[] votes = new double[poll.getNumberOfParties()];
+			float totalSeats = 0;
+			for (int i = 0; i < votes.length; i++) {
+				votes[i] = poll.getParties()[i].getProjectedPercentageOfVotes();
+				totalSeats += poll.getParties()[i].getProjectedNumberOfSeats();
+			}
+			assertEquals("Every seat is given out in " + poll.getPollName(), 338, totalSeats, 0.0001);
+
+			int[] expected = SeatAllocator.D_HONDT.allocate(votes, 338);
+			for (int i = 0; i < votes.length; i++) {
+				assertEquals("Seats from votes in " + poll.getPollName(), expected[i],
+						poll.getParties()[i].getProjectedNumberOfSeats(), 0.0001);
+			}
+		}
+
+		float averageSeats = 0;
+		for (String partyName : factory.getPartyNames()) {
+			averageSeats += list.getAveragePartyData(partyName).getProjectedNumberOfSeats();
+		}
+		assertEquals("Running totals see the new seats", 338, averageSeats, 0.01);
+		assertEquals("Snapshot sees the new seats", list.textVisualizationBySeats(), list.snapshot().textVisualizationBySeats());
+	}
+}
@@ -0,0 +1,302 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates many elections from the polls in a PollList to find how likely each outcome is, instead of only
+ * the average result given by PollList.getAggregatePoll.
+ * <p>
+ * In each simulated election every party's percentage of votes is its average over the polls plus random
+ * normally distributed noise with the same variance its votes have from poll to poll (never going below 0).
+ * The seats are then split in proportion to the votes by a SeatAllocator, the largest remainder method unless
+ * another one is set. A party wins a majority when it gets more than half of the seats, the same test
+ * Party.wonMajority uses.
+ * <p>
+ * Elections are simulated in parallel on the common ForkJoinPool in fixed blocks. Each block gets its own seed,
+ * taken in block order from this simulator's random numbers, so a simulator created with a seed gives the same
+ * results no matter how many threads do the work. Working arrays are created once per task, so simulating an
+ * election doesn't allocate anything. The number of seats each party won is counted in a histogram, from which
+ * the majority probabilities and seat percentiles of the last run can be looked up.
+ */
+public class SeatSimulator {
+	//Number of elections simulated from each block seed
+	private static final int ITERATIONS_PER_BLOCK = 1 << 16;
+
+	//Instance variables
+	private String[] partyNames;
+	private int numOfSeats;
+	private double[] meanVotes;
+	private double[] voteDeviations;
+	private SplittableRandom rand;
+	private SeatAllocator allocator = SeatAllocator.LARGEST_REMAINDER;
+
+	//Results of the last run, seatCounts[party][seats] is the number of elections the party won that many seats in
+	private long iterations;
+	private long[][] seatCounts;
+	private long elapsedNanos;
+
+	/**
+	 * Creates a simulator for the given parties from the averages and variances of their votes in a PollList.
+	 * Changes made to the PollList afterwards are not seen by the simulator.
+	 * @param polls The polls to simulate elections from
+	 * @param partyNames Names of the parties in the election
+	 */
+	public SeatSimulator(PollList polls, String[] partyNames) {
+		this(polls, partyNames, new SplittableRandom());
+	}
+
+	/**
+	 * Creates a simulator for the given parties from the averages and variances of their votes in a PollList,
+	 * which gives the same results every time it is created with the same seed.
+	 * @param polls The polls to simulate elections from
+	 * @param partyNames Names of the parties in the election
+	 * @param seed The seed for the random numbers used to simulate elections
+	 */
+	public SeatSimulator(PollList polls, String[] partyNames, long seed) {
+		this(polls, partyNames, new SplittableRandom(seed));
+	}
+
+	private SeatSimulator(PollList polls, String[] partyNames, SplittableRandom rand) {
+		this.partyNames = partyNames.clone();
+		this.rand = rand;
+		numOfSeats = polls.getNumOfSeats();
+		meanVotes = new double[partyNames.length];
+		voteDeviations = new double[partyNames.length];
+		seatCounts = new long[partyNames.length][numOfSeats + 1];
+
+		for (int party = 0; party < partyNames.length; party++) {
+			meanVotes[party] = polls.getAveragePartyData(partyNames[party]).getProjectedPercentageOfVotes();
+			voteDeviations[party] = Math.sqrt(polls.getVoteVariance(partyNames[party]));
+		}
+	}
+
+	/**
+	 * Sets the method used to split the seats in each simulated election.
+	 * @param allocator The seat allocation method, such as SeatAllocator.SAINTE_LAGUE
+	 */
+	public void setSeatAllocator(SeatAllocator allocator) {
+		if (allocator == null) {
+			System.out.println("Error: Null as argument");
+			return;
+		}
+		this.allocator = allocator;
+	}
+
+	public SeatAllocator getSeatAllocator() {
+		return allocator;
+	}
+
+	/**
+	 * Getter methods for the last run.
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Simulates the given number of elections, replacing the results of the last run.
+	 * @param iterations Number of elections to simulate, at least 1
+	 */
+	public void simulate(long iterations) {
+		if (iterations < 1) {
+			System.out.println("Error: simulate was called with an invalid argument: iterations must be at least 1");
+			return;
+		}
+
+		long start = System.nanoTime();
+		int numOfBlocks = (int) ((iterations + ITERATIONS_PER_BLOCK - 1) / ITERATIONS_PER_BLOCK);
+		long[] blockSeeds = new long[numOfBlocks];
+		for (int block = 0; block < numOfBlocks; block++) {
+			blockSeeds[block] = rand.nextLong();
+		}
+
+		//Give each thread a few tasks, so the blocks are shared out evenly without a histogram for every block
+		int blocksPerTask = Math.max(1, numOfBlocks / (4 * ForkJoinPool.getCommonPoolParallelism()));
+		seatCounts = ForkJoinPool.commonPool().invoke(
+				new SimulateBlocks(this, blockSeeds, iterations, 0, numOfBlocks, blocksPerTask));
+		this.iterations = iterations;
+		elapsedNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Simulates the elections of a range of blocks.
+	 * @param blockSeeds Seed of every block
+	 * @param totalIterations Number of elections in all blocks together, the last block may be cut short
+	 * @param fromBlock First block to simulate
+	 * @param toBlock Block after the last one to simulate
+	 * @return Histogram of the seats won by each party in these blocks
+	 */
+	private long[][] simulateBlocks(long[] blockSeeds, long totalIterations, int fromBlock, int toBlock) {
+		int numOfParties = partyNames.length;
+		long[][] counts = new long[numOfParties][numOfSeats + 1];
+		double[] votes = new double[numOfParties];
+		int[] seats = new int[numOfParties];
+		SeatAllocator.Workspace work = new SeatAllocator.Workspace(numOfParties);
+
+		for (int block = fromBlock; block < toBlock; block++) {
+			SplittableRandom blockRand = new SplittableRandom(blockSeeds[block]);
+			long blockStart = (long) block * ITERATIONS_PER_BLOCK;
+			long blockIterations = Math.min(ITERATIONS_PER_BLOCK, totalIterations - blockStart);
+
+			for (long iteration = 0; iteration < blockIterations; iteration++) {
+				for (int party = 0; party < numOfParties; party++) {
+					double vote = meanVotes[party] + voteDeviations[party] * blockRand.nextGaussian();
+					votes[party] = (vote > 0) ? vote : 0;
+				}
+
+				allocator.allocate(votes, numOfParties, numOfSeats, seats, work);
+				for (int party = 0; party < numOfParties; party++) {
+					counts[party][seats[party]]++;
+				}
+			}
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Finds the position of a party among the simulated parties, ignoring case.
+	 * @param partyName Name of a party
+	 * @return Position of the party, or -1 if it wasn't simulated
+	 */
+	private int indexOf(String partyName) {
+		for (int party = 0; party < partyNames.length; party++) {
+			if (partyNames[party].equalsIgnoreCase(partyName)) {
+				return party;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gives the share of the simulated elections in which the party won a majority of the seats.
+	 * @param partyName Name of a party
+	 * @return Probability between 0 and 1, or 0 if the party wasn't simulated or nothing has been simulated yet
+	 */
+	public double getMajorityProbability(String partyName) {
+		int party = indexOf(partyName);
+		if (party < 0 || iterations == 0) {
+			return 0;
+		}
+
+		long majorities = 0;
+		for (int seats = 0; seats <= numOfSeats; seats++) {
+			if (Party.hasMajority(numOfSeats, seats)) {
+				majorities += seatCounts[party][seats];
+			}
+		}
+		return (double) majorities / iterations;
+	}
+
+	/**
+	 * Gives the average number of seats the party won in the simulated elections.
+	 * @param partyName Name of a party
+	 * @return Average number of seats, or 0 if the party wasn't simulated or nothing has been simulated yet
+	 */
+	public double getMeanSeats(String partyName) {
+		int party = indexOf(partyName);
+		if (party < 0 || iterations == 0) {
+			return 0;
+		}
+
+		double totalSeats = 0;
+		for (int seats = 0; seats <= numOfSeats; seats++) {
+			totalSeats += (double) seats * seatCounts[party][seats];
+		}
+		return totalSeats / iterations;
+	}
+
+	/**
+	 * Gives the smallest number of seats such that the party won that many seats or fewer in at least the given
+	 * percentage of the simulated elections. The 50th percentile is the median number of seats.
+	 * @param partyName Name of a party
+	 * @param percentile Percentile between 0 and 100
+	 * @return Number of seats, or 0 if the party wasn't simulated, nothing has been simulated yet or the percentile is invalid
+	 */
+	public int getSeatPercentile(String partyName, double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			System.out.println("Error: getSeatPercentile was called with an invalid argument: percentile must be between 0 and 100");
+			return 0;
+		}
+
+		int party = indexOf(partyName);
+		if (party < 0 || iterations == 0) {
+			return 0;
+		}
+
+		double needed = Math.max(1, Math.ceil(percentile / 100 * iterations));
+		long seen = 0;
+		for (int seats = 0; seats < numOfSeats; seats++) {
+			seen += seatCounts[party][seats];
+			if (seen >= needed) {
+				return seats;
+			}
+		}
+		return numOfSeats;
+	}
+
+	/**
+	 * Gives a summary of the last run with a line for each party.
+	 * @return Summary with each party's chance of a majority and the 5th, 50th and 95th percentiles of its seats
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append("Simulated ").append(iterations).append(" elections in ").append(elapsedNanos / 1000000).append(" ms\n");
+		for (String partyName : partyNames) {
+			report.append(partyName)
+					.append(": majority ").append(String.format("%.1f", 100 * getMajorityProbability(partyName)))
+					.append("%, seats ").append(getSeatPercentile(partyName, 5))
+					.append(" to ").append(getSeatPercentile(partyName, 95))
+					.append(" (median ").append(getSeatPercentile(partyName, 50)).append(")\n");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Fork-join task that simulates a range of blocks, splitting it until each task has at most a given number
+	 * of blocks, and adds the histograms of the two halves together.
+	 */
+	private static class SimulateBlocks extends RecursiveTask<long[][]> {
+		private static final long serialVersionUID = 1L;
+
+		private SeatSimulator simulator;
+		private long[] blockSeeds;
+		private long totalIterations;
+		private int fromBlock;
+		private int toBlock;
+		private int blocksPerTask;
+
+		SimulateBlocks(SeatSimulator simulator, long[] blockSeeds, long totalIterations, int fromBlock, int toBlock,
+				int blocksPerTask) {
+			this.simulator = simulator;
+			this.blockSeeds = blockSeeds;
+			this.totalIterations = totalIterations;
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+			this.blocksPerTask = blocksPerTask;
+		}
+
+		@Override
+		protected long[][] compute() {
+			if (toBlock - fromBlock <= blocksPerTask) {
+				return simulator.simulateBlocks(blockSeeds, totalIterations, fromBlock, toBlock);
+			}
+
+			int middle = (fromBlock + toBlock) >>> 1;
+			SimulateBlocks left = new SimulateBlocks(simulator, blockSeeds, totalIterations, fromBlock, middle, blocksPerTask);
+			left.fork();
+			long[][] right = new SimulateBlocks(simulator, blockSeeds, totalIterations, middle, toBlock, blocksPerTask).compute();
+			long[][] counts = left.join();
+			for (int party = 0; party < counts.length; party++) {
+				for (int seats = 0; seats < counts[party].length; seats++) {
+					counts[party][seats] += right[party][seats];
+				}
+			}
+			return counts;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SeatSimulatorTest {
+
+	private static PollList twoPartyPolls(float... aVotes) {
+		PollList list = new PollList(aVotes.length, 10);
+		for (int i = 0; i < aVotes.length; i++) {
+			Poll poll = new Poll("Sim" + i, 2);
+			poll.addParty(new Party("Sim A", 0, aVotes[i]));
+			poll.addParty(new Party("Sim B", 0, 1 - aVotes[i]));
+			list.addPoll(poll);
+		}
+		return list;
+	}
+
+	// Testing that a seed always gives the same results
+	@Test
+	public void test_simulate_sameSeed_sameResults() {
+		Factory factory = new Factory(338, 15);
+		PollList list = factory.createRandomPollList(100);
+		String[] partyNames = factory.getPartyNames();
+		//More than one block of elections, so the blocks may be simulated on different threads
+		SeatSimulator first = new SeatSimulator(list, partyNames, 7);
+		first.simulate(150000);
+		SeatSimulator second = new SeatSimulator(list, partyNames, 7);
+		second.simulate(150000);
+
+		double totalSeats = 0;
+		for (String partyName : partyNames) {
+			assertEquals(first.getMeanSeats(partyName), second.getMeanSeats(partyName), 0);
+			assertEquals(first.getMajorityProbability(partyName), second.getMajorityProbability(partyName), 0);
+			assertEquals(first.getSeatPercentile(partyName, 95), second.getSeatPercentile(partyName, 95));
+			totalSeats += first.getMeanSeats(partyName);
+		}
+		//Every seat is given out, except in the rare elections in which the noise takes every party's votes to 0
+		assertTrue("Seats given out on average", totalSeats <= 338 && totalSeats > 337.9);
+
+		first.simulate(150000);
+		assertNotEquals("The next run goes on with new random numbers", second.getMeanSeats(partyNames[0]),
+				first.getMeanSeats(partyNames[0]), 0);
+	}
+
+	// Testing results that can be worked out by hand
+	@Test
+	public void test_simulate_noVariance_sameSeatsEveryTime() {
+		SeatSimulator simulator = new SeatSimulator(twoPartyPolls(0.62f, 0.62f), new String[] {"Sim A", "Sim B"}, 3);
+		simulator.simulate(1000);
+
+		assertEquals(1000, simulator.getIterations());
+		assertEquals("62% of 10 seats by largest remainder", 6, simulator.getMeanSeats("sim a"), 1e-9);
+		assertEquals(4, simulator.getMeanSeats("Sim B"), 1e-9);
+		assertEquals(1, simulator.getMajorityProbability("Sim A"), 0);
+		assertEquals(0, simulator.getMajorityProbability("Sim B"), 0);
+		assertEquals(6, simulator.getSeatPercentile("Sim A", 5));
+		assertEquals(6, simulator.getSeatPercentile("Sim A", 95));
+		assertEquals("Party that wasn't simulated", 0, simulator.getMeanSeats("Sim C"), 0);
+	}
+
+	@Test
+	public void test_simulate_evenPolls_neitherAlwaysWins() {
+		SeatSimulator simulator = new SeatSimulator(twoPartyPolls(0.4f, 0.6f, 0.45f, 0.55f), new String[] {"Sim A", "Sim B"}, 4);
+		simulator.simulate(20000);
+
+		double majorityA = simulator.getMajorityProbability("Sim A");
+		double majorityB = simulator.getMajorityProbability("Sim B");
+		assertTrue("Both parties win some elections", majorityA > 0.2 && majorityB > 0.2);
+		assertTrue("A 5-5 split is neither party's majority", majorityA + majorityB < 1);
+		assertEquals("Seats always add to 10", 10, simulator.getMeanSeats("Sim A") + simulator.getMeanSeats("Sim B"), 1e-9);
+		assertTrue(simulator.getSeatPercentile("Sim A", 5) < simulator.getSeatPercentile("Sim A", 95));
+	}
+}
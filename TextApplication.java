@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -14,6 +18,10 @@ public class TextApplication {
 
     //TextApplication class instance variables
     private PollList polls;
+    //Writes visualizations of all polls to the console one poll at a time
+    private PollListWriter consoleWriter = new PollListWriter(System.out, false);
+    //Number of elections run by the simulate option
+    private static final int SIMULATED_ELECTIONS = 1000000;
 
     /**
      * Runs the entire application. Prompts the user for information and then displays the polls created accordingly.
@@ -45,19 +53,29 @@ public class TextApplication {
             generateRandomPolls(nPolls, nSeats, partyNames);
         }
 
+        //Input a file name or "no" when prompted for a file of polls to import
+        boolean pollsCreated = shouldUseRandomSeats;
+        if (!shouldUseRandomSeats) {
+            System.out.println("Would you like to import polls from a file (enter the file name, or no)? ");
+            String fileName = input.next();
+            if (!fileName.equalsIgnoreCase("no")) {
+                pollsCreated = importPolls(fileName, nSeats);
+            }
+        }
+
         //Input "votes" or "seats" when prompted for preferred visualization
         System.out.println("Would you prefer a visualization by Votes or Seats?");
         String votesOrSeats = input.next();
         boolean useSeats = (votesOrSeats.equalsIgnoreCase("seats")) ? true : false;
 
-        handleOptions(useSeats, shouldUseRandomSeats, nPolls, nSeats, partyNames);
+        handleOptions(useSeats, pollsCreated, nPolls, nSeats, partyNames);
     }
 
     /**
      * This helper method helps check for user input regarding whether they want to enter their own information or have a random poll created.
-     * Also handles user input regarding choice between "all", "aggregate", and "quit" then calls appropriate methods to print. 
+     * Also handles user input regarding choice between "all", "aggregate", "simulate", "save", "load", and "quit" then calls appropriate methods. 
      * @param useSeats Boolean indicating whether to print the aggregate poll visualization by seats or votes
-     * @param shouldUseRandomSeats Boolean indicating whether to use random seats or allow user to input their own information
+     * @param shouldUseRandomSeats Boolean indicating whether the polls were already created (randomly or from a file) or the user should input their own information
      * @param nPolls The number of polls being tracked that need to be printed out
      * @param nSeats The number of seats available in the election to split among the different parties
      * @param partyNames Array containing each party to be displayed in the election.
@@ -69,7 +87,7 @@ public class TextApplication {
 
         while (!shouldQuit) {
 
-            System.out.println("Options: all (show result of all polls) aggregate (show aggregate result), quit (end application) Choose an option: ");
+            System.out.println("Options: all (show result of all polls) aggregate (show aggregate result), simulate (simulate election outcomes), save (save polls to a file), load (load polls from a file), quit (end application) Choose an option: ");
             String choice = input.next();
 
             shouldQuit = (choice.equalsIgnoreCase("quit")) ? true : false;
@@ -81,12 +99,32 @@ public class TextApplication {
             
             boolean aggregate = (choice.equalsIgnoreCase("aggregate")) ? true : false;
 
+            //Loaded polls replace the current ones, so the user doesn't need to enter their own data after loading
+            if (choice.equalsIgnoreCase("load")) {
+                System.out.println("Enter the name of the file to load: ");
+                if (loadPolls(input.next())) {
+                    finishedLoopOnce = true;
+                }
+                continue;
+            }
+
             //Checking if user wants to enter their own data and if so, checking if user has already entered their own data
             if(!shouldUseRandomSeats && !finishedLoopOnce) {
                 promptForPollList(nPolls, nSeats, partyNames);
                 finishedLoopOnce = true;
             }
 
+            if (choice.equalsIgnoreCase("simulate")) {
+                simulateElections(partyNames);
+                continue;
+            }
+
+            if (choice.equalsIgnoreCase("save")) {
+                System.out.println("Enter the name of the file to save to: ");
+                savePolls(input.next());
+                continue;
+            }
+
             if (aggregate) {
                 visualizeAggregatePoll(partyNames, useSeats);
             }
@@ -98,20 +136,20 @@ public class TextApplication {
     }
 
     /**
-     * This method returns a visualization of text visualization of polls(all)
-     * by votes and by seats depending on the value of useSeats
+     * This method prints a visualization of text visualization of polls(all)
+     * by votes and by seats depending on the value of useSeats.
+     * Each poll is written to the console as it is produced, so the visualization
+     * of the whole list is never held in memory at once.
      * @param useSeats useSeats Boolean indicating whether to print the aggregate poll visualization
      * by seats or votes
      */
     public void visualizePolls(boolean useSeats) {
-    	if (useSeats) {
-            System.out.println(
-                    polls.textVisualizationBySeats());
+        try {
+            consoleWriter.writeVisualization(polls, useSeats);
+            consoleWriter.newLine();
         }
-        else {
-            System.out.println(
-                    polls.textVisualizationByVotes()
-            );
+        catch (IOException e) {
+            System.out.println("Error: could not print the polls: " + e.getMessage());
         }
     }
 
@@ -122,13 +160,12 @@ public class TextApplication {
      * by seats or votes
      */
     public void visualizeAggregatePoll(String[] partyNames, boolean useSeats) {
-    	Poll aggregatePoll = polls.getAggregatePoll(partyNames);
-
-        // Now we can use the useSeats boolean to get the appropriate visualization
+        // Now we can use the useSeats boolean to get the appropriate visualization,
+        // which the poll list keeps until its polls change
         if (useSeats) {
-            displayPollDataBySeat(aggregatePoll);
+            System.out.println(polls.getAggregateVisualizationBySeats(partyNames));
         } else {
-            displayPollDataByVotes(aggregatePoll);
+            System.out.println(polls.getAggregateVisualizationByVotes(partyNames));
         }
     }
 
@@ -190,6 +227,75 @@ public class TextApplication {
         }
     }
 
+    /**
+     * This method handles the case where the user wants to import polls from a delimited file
+     * (poll name, party name, seats, percentage of votes on each row, tab separated for .tsv files
+     * and comma separated otherwise). It prints how many rows were read and rejected.
+     * @param fileName The name of the file to import.
+     * @param nSeats The number of seats available in the election.
+     * @return true if the file was imported, false if it couldn't be read.
+     */
+    public boolean importPolls(String fileName, int nSeats) {
+        try {
+            Path file = Paths.get(fileName);
+            PollImporter importer = PollImporter.forFile(file);
+            polls = importer.importPolls(file, nSeats);
+            System.out.println(importer.getReport());
+            return true;
+        }
+        catch (IOException | InvalidPathException e) {
+            System.out.println("Error: could not import " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method simulates a million elections from the current polls and prints each party's chance of
+     * winning a majority and the range of seats it is likely to win.
+     * @param partyNames Array containing each party to be simulated in the election.
+     */
+    public void simulateElections(String[] partyNames) {
+        SeatSimulator simulator = new SeatSimulator(polls, partyNames);
+        simulator.simulate(SIMULATED_ELECTIONS);
+        System.out.print(simulator.getReport());
+    }
+
+    /**
+     * This method saves the current polls to a binary file that can be loaded again with loadPolls.
+     * @param fileName The name of the file to save to.
+     * @return true if the polls were saved, false if the file couldn't be written.
+     */
+    public boolean savePolls(String fileName) {
+        try {
+            long start = System.nanoTime();
+            PollListFile.save(polls, Paths.get(fileName));
+            System.out.println("Saved " + polls.getNumOfPolls() + " polls in " + (System.nanoTime() - start) / 1000000 + " ms");
+            return true;
+        }
+        catch (IOException | InvalidPathException e) {
+            System.out.println("Error: could not save " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * This method replaces the current polls with polls saved by savePolls.
+     * @param fileName The name of the file to load.
+     * @return true if the polls were loaded, false if the file couldn't be read.
+     */
+    public boolean loadPolls(String fileName) {
+        try {
+            long start = System.nanoTime();
+            polls = PollListFile.load(Paths.get(fileName));
+            System.out.println("Loaded " + polls.getNumOfPolls() + " polls in " + (System.nanoTime() - start) / 1000000 + " ms");
+            return true;
+        }
+        catch (IOException | InvalidPathException e) {
+            System.out.println("Error: could not load " + fileName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * This method handles the case where the user wants to create a random set of polls.
      * The method doesn't return anything.
@@ -214,12 +320,8 @@ public class TextApplication {
      * @param toDisplay A specific Poll instance
      */
     public void displayPollDataBySeat(Poll toDisplay) {
-    	int numOfSeats = polls.getNumOfSeats();
         int maxStars = polls.MAX_STARS_FOR_VISUALIZATION;
-
-        // Code used from Mohammad's PollList class
-        float temp = (float) numOfSeats / maxStars;
-        int numOfSeatsPerStar = (int) Math.ceil(temp);
+        int numOfSeatsPerStar = polls.getNumOfSeatsPerStar();
 
         System.out.println(
                 toDisplay.textVisualizationBySeats(maxStars, numOfSeatsPerStar)
@@ -248,9 +350,7 @@ public class TextApplication {
      */
     public void displayPollDataByVotes(Poll toDisplay) {
     	int maxStars = polls.MAX_STARS_FOR_VISUALIZATION;
-
-        // Code used from Mohammad's PollList class
-        double percentPerStar = (int) Math.ceil(100.0 / maxStars);
+        double percentPerStar = polls.getPercentOfVotesPerStar();
 
         System.out.println(
                 toDisplay.textVisualizationByVotes(maxStars, percentPerStar)
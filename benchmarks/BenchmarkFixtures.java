@@ -0,0 +1,219 @@
+import java.awt.Color;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Builds the data and operations measured by the JMH benchmarks in the polltracker package.
+ * <p>
+ * JMH only accepts benchmark classes that are in a named package, and classes in a named package can't use
+ * the application classes, which are in the default package. This class is in the default package, so it
+ * can build the objects, and hands each operation to the benchmarks as a Supplier. The benchmarks find these
+ * methods by name once during setup and only call Supplier.get while measuring.
+ * <p>
+ * All data is generated from fixed seeds so every run measures the same polls.
+ */
+public class BenchmarkFixtures {
+
+	/**
+	 * Creates the names "Party0", "Party1", ... used by the generated polls.
+	 * @param numOfParties Number of names to create
+	 * @return Array of party names
+	 */
+	private static String[] partyNames(int numOfParties) {
+		String[] names = new String[numOfParties];
+		for (int i = 0; i < numOfParties; i++) {
+			names[i] = "Party" + i;
+		}
+		return names;
+	}
+
+	/**
+	 * Creates a poll holding every named party with random seats and votes.
+	 * @param name Name of the poll
+	 * @param names Names of the parties in the poll
+	 * @param numOfSeats Seats in the election
+	 * @param rand Source of random numbers
+	 * @return New poll
+	 */
+	private static Poll randomPoll(String name, String[] names, int numOfSeats, Random rand) {
+		Poll poll = new Poll(name, names.length);
+		for (String partyName : names) {
+			poll.addParty(new Party(partyName, rand.nextInt(numOfSeats / names.length + 1), rand.nextFloat() / names.length));
+		}
+		return poll;
+	}
+
+	/**
+	 * Party.toString on a party with a colour.
+	 */
+	public static Supplier<Object> partyToString() {
+		Party party = new Party("Conservative Party of Canada", 121.5f, 0.337f);
+		party.setColour(Color.BLUE);
+		return party::toString;
+	}
+
+	/**
+	 * Party.getVisualization by seats.
+	 * @param maxStars Number of stars in the visualization
+	 */
+	public static Supplier<Object> partyVisualization(int maxStars) {
+		Party party = new Party("Conservative Party of Canada", 121.5f, 0.337f);
+		party.setColour(Color.BLUE);
+		double seatsPerStar = Math.ceil(338.0 / maxStars);
+		return () -> party.getVisualization(maxStars, seatsPerStar, true);
+	}
+
+	/**
+	 * Fills a new Poll with the given number of parties using Poll.addParty.
+	 * @param numOfParties Number of parties added per operation
+	 */
+	public static Supplier<Object> pollAddParties(int numOfParties) {
+		String[] names = partyNames(numOfParties);
+		Party[] parties = new Party[numOfParties];
+		for (int i = 0; i < numOfParties; i++) {
+			parties[i] = new Party(names[i], 1, 0.01f);
+		}
+
+		return () -> {
+			Poll poll = new Poll("Poll", numOfParties);
+			for (Party party : parties) {
+				poll.addParty(party);
+			}
+			return poll;
+		};
+	}
+
+	/**
+	 * Poll.getParty on a poll with the given number of parties, cycling through the names in a different
+	 * case than they were added with.
+	 * @param numOfParties Number of parties in the poll
+	 */
+	public static Supplier<Object> pollGetParty(int numOfParties) {
+		String[] names = partyNames(numOfParties);
+		Poll poll = randomPoll("Poll", names, 338, new Random(1));
+		String[] lookups = new String[numOfParties];
+		for (int i = 0; i < numOfParties; i++) {
+			lookups[i] = names[i].toUpperCase();
+		}
+
+		int[] next = new int[1];
+		return () -> {
+			int i = next[0];
+			next[0] = (i + 1 == lookups.length) ? 0 : i + 1;
+			return poll.getParty(lookups[i]);
+		};
+	}
+
+	/**
+	 * Creates a PollList of random polls.
+	 * @param numOfPolls Number of polls in the list
+	 * @param numOfParties Number of parties in each poll
+	 * @return New PollList
+	 */
+	private static PollList randomPollList(int numOfPolls, int numOfParties) {
+		String[] names = partyNames(numOfParties);
+		Random rand = new Random(2);
+		PollList list = new PollList(numOfPolls, 338);
+		for (int i = 0; i < numOfPolls; i++) {
+			list.addPoll(randomPoll("Poll" + i, names, 338, rand));
+		}
+		return list;
+	}
+
+	/**
+	 * PollList.getAggregatePoll for every party, asked for again without the list changing, so every call after
+	 * the first is answered from the aggregate cache.
+	 * @param numOfPolls Number of polls in the list
+	 * @param numOfParties Number of parties in each poll
+	 */
+	public static Supplier<Object> aggregatePoll(int numOfPolls, int numOfParties) {
+		PollList list = randomPollList(numOfPolls, numOfParties);
+		String[] names = partyNames(numOfParties);
+		return () -> list.getAggregatePoll(names);
+	}
+
+	/**
+	 * PollList.getAggregatePoll for every party after replacing a poll, which empties the aggregate cache. Each
+	 * call swaps the first poll for one of two prepared polls with the same name, updating the running totals,
+	 * and then works out the aggregate from the totals.
+	 * @param numOfPolls Number of polls in the list
+	 * @param numOfParties Number of parties in each poll
+	 */
+	public static Supplier<Object> aggregatePollUncached(int numOfPolls, int numOfParties) {
+		PollList list = randomPollList(numOfPolls, numOfParties);
+		String[] names = partyNames(numOfParties);
+		Random rand = new Random(3);
+		Poll[] replacements = {randomPoll("Poll0", names, 338, rand), randomPoll("Poll0", names, 338, rand)};
+		int[] next = {0};
+		return () -> {
+			list.addPoll(replacements[next[0]]);
+			next[0] ^= 1;
+			return list.getAggregatePoll(names);
+		};
+	}
+
+	/**
+	 * PollList.recomputeAggregates, which adds up every poll again.
+	 * @param numOfPolls Number of polls in the list
+	 * @param numOfParties Number of parties in each poll
+	 */
+	public static Supplier<Object> recomputeAggregates(int numOfPolls, int numOfParties) {
+		PollList list = randomPollList(numOfPolls, numOfParties);
+		return () -> {
+			list.recomputeAggregates();
+			return list;
+		};
+	}
+
+	/**
+	 * Factory.createRandomPollList, from a seeded factory.
+	 * @param numOfPolls Number of polls to generate per operation
+	 * @param numOfParties Number of parties in the election
+	 */
+	public static Supplier<Object> createRandomPollList(int numOfPolls, int numOfParties) {
+		Factory factory = new Factory(338, 3);
+		factory.setPartyNames(partyNames(numOfParties));
+		return () -> factory.createRandomPollList(numOfPolls);
+	}
+
+	/**
+	 * Factory.createRandomPollListInParallel, from a seeded factory.
+	 * @param numOfPolls Number of polls to generate per operation
+	 * @param numOfParties Number of parties in the election
+	 */
+	public static Supplier<Object> createRandomPollListInParallel(int numOfPolls, int numOfParties) {
+		Factory factory = new Factory(338, 3);
+		factory.setPartyNames(partyNames(numOfParties));
+		return () -> factory.createRandomPollListInParallel(numOfPolls);
+	}
+
+	/**
+	 * SeatSimulator.simulate on a random PollList of 1000 polls.
+	 * @param iterations Number of elections simulated per operation
+	 * @param numOfParties Number of parties in the election
+	 */
+	public static Supplier<Object> simulateElections(int iterations, int numOfParties) {
+		String[] names = partyNames(numOfParties);
+		SeatSimulator simulator = new SeatSimulator(randomPollList(1000, numOfParties), names, 4);
+		return () -> {
+			simulator.simulate(iterations);
+			return simulator;
+		};
+	}
+
+	/**
+	 * PollList.projectRidingSeats with a random riding model of 338 ridings.
+	 * @param numOfPolls Number of polls in the list
+	 * @param numOfParties Number of parties in each poll
+	 */
+	public static Supplier<Object> projectRidingSeats(int numOfPolls, int numOfParties) {
+		PollList list = randomPollList(numOfPolls, numOfParties);
+		Factory factory = new Factory(338, 5);
+		factory.setPartyNames(partyNames(numOfParties));
+		list.setRidingModel(factory.createRandomRidingModel());
+		return () -> {
+			list.projectRidingSeats();
+			return list;
+		};
+	}
+}
@@ -0,0 +1,49 @@
+package polltracker;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the same arguments as the standard JMH runner, but always adds the
+ * gc profiler to a benchmark run, so every result comes with its allocation rate (gc.alloc.rate.norm is bytes
+ * per operation). Arguments that don't run benchmarks, such as -h, -l, -lp and -lprof, or arguments JMH can't
+ * read are handed to the standard JMH runner as they are.
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine;
+		try {
+			commandLine = new CommandLineOptions(args);
+		}
+		catch (CommandLineOptionException e) {
+			Main.main(args);
+			return;
+		}
+
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+
+		Options options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		try {
+			new Runner(options).run();
+		}
+		catch (RunnerException e) {
+			System.err.println("Error: benchmarks failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Factory.createRandomPollList and Factory.createRandomPollListInParallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryBenchmark {
+
+	@Param({"100", "10000"})
+	public int polls;
+
+	@Param({"5", "10", "50"})
+	public int parties;
+
+	private Supplier<Object> createRandomPollList;
+	private Supplier<Object> createRandomPollListInParallel;
+
+	@Setup
+	public void setup() {
+		createRandomPollList = Fixtures.get("createRandomPollList", polls, parties);
+		createRandomPollListInParallel = Fixtures.get("createRandomPollListInParallel", polls, parties);
+	}
+
+	@Benchmark
+	public Object createRandomPollList() {
+		return createRandomPollList.get();
+	}
+
+	@Benchmark
+	public Object createRandomPollListInParallel() {
+		return createRandomPollListInParallel.get();
+	}
+}
@@ -0,0 +1,40 @@
+package polltracker;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Looks up the operations built by BenchmarkFixtures. That class is in the default package, which code in a
+ * named package can't refer to directly, so its methods are found by reflection. This only happens during
+ * benchmark setup.
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	/**
+	 * Calls the BenchmarkFixtures method with the given name and int arguments.
+	 * @param name Name of the method
+	 * @param args Arguments to pass to the method
+	 * @return The operation the method built
+	 */
+	@SuppressWarnings("unchecked")
+	static Supplier<Object> get(String name, int... args) {
+		try {
+			Class<?>[] parameterTypes = new Class<?>[args.length];
+			Arrays.fill(parameterTypes, int.class);
+			Object[] arguments = new Object[args.length];
+			for (int i = 0; i < args.length; i++) {
+				arguments[i] = args[i];
+			}
+
+			Method method = Class.forName("BenchmarkFixtures").getMethod(name, parameterTypes);
+			return (Supplier<Object>) method.invoke(null, arguments);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create benchmark fixture " + name, e);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Party.toString and Party.getVisualization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartyBenchmark {
+
+	@Param({"18", "72"})
+	public int maxStars;
+
+	private Supplier<Object> toString;
+	private Supplier<Object> visualization;
+
+	@Setup
+	public void setup() {
+		toString = Fixtures.get("partyToString");
+		visualization = Fixtures.get("partyVisualization", maxStars);
+	}
+
+	@Benchmark
+	public Object partyToString() {
+		return toString.get();
+	}
+
+	@Benchmark
+	public Object getVisualization() {
+		return visualization.get();
+	}
+}
@@ -0,0 +1,50 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures Poll.addParty, by filling a new poll with every party, and Poll.getParty.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollBenchmark {
+
+	@Param({"7", "100", "1000"})
+	public int parties;
+
+	private Supplier<Object> addParties;
+	private Supplier<Object> getParty;
+
+	@Setup
+	public void setup() {
+		addParties = Fixtures.get("pollAddParties", parties);
+		getParty = Fixtures.get("pollGetParty", parties);
+	}
+
+	@Benchmark
+	public Object addParty() {
+		return addParties.get();
+	}
+
+	@Benchmark
+	public Object getParty() {
+		return getParty.get();
+	}
+}
@@ -0,0 +1,62 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures PollList.getAggregatePoll answered from the aggregate cache, getAggregatePoll after a poll is replaced
+ * so the cache is empty and the aggregate is worked out from the running totals, and recomputeAggregates, which
+ * adds up every poll again. Only recomputeAggregates takes time in proportion to the number of polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollListBenchmark {
+
+	@Param({"100", "10000", "100000"})
+	public int polls;
+
+	@Param({"7", "50"})
+	public int parties;
+
+	private Supplier<Object> aggregatePoll;
+	private Supplier<Object> aggregatePollUncached;
+	private Supplier<Object> recomputeAggregates;
+
+	@Setup
+	public void setup() {
+		aggregatePoll = Fixtures.get("aggregatePoll", polls, parties);
+		aggregatePollUncached = Fixtures.get("aggregatePollUncached", polls, parties);
+		recomputeAggregates = Fixtures.get("recomputeAggregates", polls, parties);
+	}
+
+	@Benchmark
+	public Object getAggregatePoll() {
+		return aggregatePoll.get();
+	}
+
+	@Benchmark
+	public Object getAggregatePollUncached() {
+		return aggregatePollUncached.get();
+	}
+
+	@Benchmark
+	public Object recomputeAggregates() {
+		return recomputeAggregates.get();
+	}
+}
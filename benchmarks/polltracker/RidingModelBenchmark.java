@@ -0,0 +1,46 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures PollList.projectRidingSeats, which projects every riding for every poll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RidingModelBenchmark {
+
+	@Param({"100", "5000"})
+	public int polls;
+
+	@Param({"7", "20"})
+	public int parties;
+
+	private Supplier<Object> projectRidingSeats;
+
+	@Setup
+	public void setup() {
+		projectRidingSeats = Fixtures.get("projectRidingSeats", polls, parties);
+	}
+
+	@Benchmark
+	public Object projectRidingSeats() {
+		return projectRidingSeats.get();
+	}
+}
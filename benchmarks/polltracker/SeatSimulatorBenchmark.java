@@ -0,0 +1,46 @@
+package polltracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures SeatSimulator.simulate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatSimulatorBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int iterations;
+
+	@Param({"5", "50"})
+	public int parties;
+
+	private Supplier<Object> simulate;
+
+	@Setup
+	public void setup() {
+		simulate = Fixtures.get("simulateElections", iterations, parties);
+	}
+
+	@Benchmark
+	public Object simulate() {
+		return simulate.get();
+	}
+}